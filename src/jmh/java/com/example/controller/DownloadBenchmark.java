@@ -0,0 +1,114 @@
+package com.example.controller;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.http.HttpHeaders;
+
+import com.example.config.CachingProperties;
+import com.example.dto.DocumentInfo;
+import com.example.dto.FileType;
+import com.example.service.impl.DocumentContentCache;
+import com.example.service.impl.DocumentMetrics;
+import com.example.service.impl.DocumentServiceFactory;
+import com.example.storage.impl.InMemoryObjectStore;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * A download from {@link DocumentDownloadHandler} to the response body, with the
+ * object store replaced by one in memory and the content cache off, so what is left
+ * is this application's own work per byte: opening the body, headers, metrics and
+ * the buffered copy. Whole files and a 64KB range are measured at each size.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DownloadBenchmark {
+	@Param({ "1024", "65536", "1048576", "52428800" })
+	int size;
+
+	DocumentDownloadHandler handler;
+	DocumentInfo info;
+	HttpHeaders noHeaders;
+	HttpHeaders rangeHeaders;
+
+	@Setup
+	public void setUp() throws IOException {
+		var store = new InMemoryObjectStore();
+		var metadata = store.put("public/benchmark.pdf", "application/pdf",
+				new ByteArrayInputStream(new byte[size]), size);
+
+		var caching = new CachingProperties();
+		caching.getContent().setEnabled(false);
+		var service = new DocumentServiceFactory()
+				.objectStore(store)
+				.contentCache(new DocumentContentCache(caching))
+				.metrics(new DocumentMetrics(new SimpleMeterRegistry()))
+				.build();
+		handler = new DocumentDownloadHandler(service);
+
+		info = DocumentInfo.builder()
+				.fileId("benchmark")
+				.fileName("benchmark.pdf")
+				.fileExtension("pdf")
+				.fileKey(metadata.key())
+				.fileType(FileType.PUBLIC)
+				.mime("application/pdf")
+				.fileSize(metadata.size())
+				.etag(metadata.etag())
+				.uploadAt(new Date())
+				.build();
+		noHeaders = new HttpHeaders();
+		rangeHeaders = new HttpHeaders();
+		rangeHeaders.set(HttpHeaders.RANGE, "bytes=0-" + (Math.min(size, 65536) - 1));
+	}
+
+	@Benchmark
+	public void wholeFile(Blackhole blackhole) throws IOException {
+		handler.serve(info, noHeaders, null).getBody().writeTo(new BlackholeOutputStream(blackhole));
+	}
+
+	@Benchmark
+	public void range(Blackhole blackhole) throws IOException {
+		handler.serve(info, rangeHeaders, null).getBody().writeTo(new BlackholeOutputStream(blackhole));
+	}
+
+	/** Stands in for the servlet output; consumes what is written so it cannot be optimized away. */
+	private static class BlackholeOutputStream extends OutputStream {
+		private final Blackhole blackhole;
+
+		BlackholeOutputStream(Blackhole blackhole) {
+			this.blackhole = blackhole;
+		}
+
+		@Override
+		public void write(int b) {
+			blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] bytes, int offset, int length) {
+			blackhole.consume(bytes);
+			blackhole.consume(length);
+		}
+	}
+}
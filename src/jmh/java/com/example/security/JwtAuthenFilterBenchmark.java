@@ -0,0 +1,84 @@
+package com.example.security;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.security.core.userdetails.UserDetails;
+
+import com.example.config.SecurityProperties;
+import com.example.entity.UserEntity;
+import com.example.service.UserService;
+import com.example.service.impl.JwtGenerateServiceImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+
+/**
+ * What every authenticated request pays before reaching a controller: reading the
+ * bearer token, validating it and loading the user. The user service is a stub
+ * answering from memory, like a warm user cache.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtAuthenFilterBenchmark {
+	private static final FilterChain END_OF_CHAIN = (request, response) -> {
+	};
+
+	JwtAuthenFilter filter;
+	String authorization;
+
+	@Setup
+	public void setUp() {
+		var jwtService = new JwtGenerateServiceImpl(new SecurityProperties());
+		filter = new JwtAuthenFilter(jwtService, new StubUserService(), new SimpleMeterRegistry());
+		authorization = "Bearer " + jwtService.generateToken("teacher");
+	}
+
+	@Benchmark
+	public Object authenticate() throws ServletException, IOException {
+		var request = new MockHttpServletRequest("GET", "/api/documents/");
+		request.addHeader("Authorization", authorization);
+		filter.doFilter(request, new MockHttpServletResponse(), END_OF_CHAIN);
+		var authentication = SecurityContextHolder.getContext().getAuthentication();
+		// the filter skips requests whose thread is already authenticated
+		SecurityContextHolder.clearContext();
+		return authentication;
+	}
+
+	private static class StubUserService implements UserService {
+		@Override
+		public UserDetails loadUserByUsername(String username) {
+			return new User(username, "", List.of(new SimpleGrantedAuthority("TEACHER")));
+		}
+
+		@Override
+		public UserEntity getReference(String username) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public void evictAll() {
+		}
+	}
+}
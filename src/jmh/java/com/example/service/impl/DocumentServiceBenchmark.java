@@ -0,0 +1,78 @@
+package com.example.service.impl;
+
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.IntStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.mock.web.MockMultipartFile;
+
+import com.example.dto.DocumentPage;
+import com.example.dto.DocumentSummary;
+
+/**
+ * The request-time helpers of {@link DocumentServiceImpl} that run without storage or
+ * database: upload validation and turning a listing query's rows into a page.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DocumentServiceBenchmark {
+	DocumentServiceImpl service;
+	MockMultipartFile file;
+
+	@Setup
+	public void setUp() {
+		service = new DocumentServiceFactory().build();
+		file = new MockMultipartFile("document", "Lecture 03 - Linear algebra.pdf", "application/pdf", new byte[1024]);
+	}
+
+	@Benchmark
+	public MockMultipartFile validateFile() {
+		service.validateFile(file);
+		return file;
+	}
+
+	@Benchmark
+	public String getFileExtension() {
+		return service.getFileExtension(file.getOriginalFilename());
+	}
+
+	@Benchmark
+	public DocumentPage toPage(Listing listing) {
+		return service.toPage(listing.rows, listing.pageSize);
+	}
+
+	@State(Scope.Benchmark)
+	public static class Listing {
+		@Param({ "50", "200" })
+		int pageSize;
+
+		List<DocumentSummary> rows;
+
+		@Setup
+		public void setUp() {
+			// one row more than the page, as the listing queries fetch it
+			Date now = new Date();
+			rows = IntStream.rangeClosed(0, pageSize)
+					.mapToObj(i -> new DocumentSummary(i, UUID.randomUUID().toString(), "document-" + i + ".pdf",
+							new Date(now.getTime() - i * 1000L)))
+					.toList();
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.example.service.impl;
+
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.config.StorageProperties;
+import com.example.config.UploadProperties;
+import com.example.repo.DocumentRepo;
+import com.example.repo.StorageOutboxRepo;
+import com.example.service.UserService;
+import com.example.storage.AsyncObjectStore;
+import com.example.storage.ObjectPresigner;
+import com.example.storage.ObjectStore;
+
+/**
+ * Builds a {@link DocumentServiceImpl} for benchmarks out of the collaborators a
+ * benchmark sets; the others are left {@code null}. Every argument is passed as a
+ * typed variable, so a change to the constructor fails to compile here rather than
+ * shifting arguments silently.
+ */
+public class DocumentServiceFactory {
+	private ObjectStore objectStore;
+	private DocumentContentCache contentCache;
+	private DocumentMetrics metrics;
+	private UploadProperties uploadProperties = new UploadProperties();
+	private StorageProperties storageProperties = new StorageProperties();
+
+	public DocumentServiceFactory objectStore(ObjectStore objectStore) {
+		this.objectStore = objectStore;
+		return this;
+	}
+
+	public DocumentServiceFactory contentCache(DocumentContentCache contentCache) {
+		this.contentCache = contentCache;
+		return this;
+	}
+
+	public DocumentServiceFactory metrics(DocumentMetrics metrics) {
+		this.metrics = metrics;
+		return this;
+	}
+
+	public DocumentServiceFactory uploadProperties(UploadProperties uploadProperties) {
+		this.uploadProperties = uploadProperties;
+		return this;
+	}
+
+	public DocumentServiceFactory storageProperties(StorageProperties storageProperties) {
+		this.storageProperties = storageProperties;
+		return this;
+	}
+
+	public DocumentServiceImpl build() {
+		UserService userService = null;
+		DocumentRepo documentRepo = null;
+		StorageOutboxRepo outboxRepo = null;
+		DocumentBlobRegistry blobRegistry = null;
+		DocumentSearchIndex searchIndex = null;
+		DocumentMetadataCache metadataCache = null;
+		DocumentThumbnailer thumbnailer = null;
+		AsyncObjectStore asyncObjectStore = null;
+		Optional<ObjectPresigner> presigner = Optional.empty();
+		ExecutorService storageUploadExecutor = null;
+		TransactionTemplate transactionTemplate = null;
+		return new DocumentServiceImpl(userService, documentRepo, outboxRepo, blobRegistry, searchIndex,
+				metadataCache, contentCache, thumbnailer, metrics, objectStore, asyncObjectStore, presigner,
+				uploadProperties, storageProperties, storageUploadExecutor, transactionTemplate);
+	}
+}
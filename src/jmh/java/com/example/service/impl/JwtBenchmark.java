@@ -0,0 +1,67 @@
+package com.example.service.impl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.example.config.SecurityProperties;
+
+/**
+ * Token issue and validation. Validation runs against the verified-token cache, as
+ * for a client sending the same token again, and without it, as for the first
+ * request with a token, which pays for the signature check.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JwtBenchmark {
+	private static final int NEW_TOKENS = 1024;
+
+	JwtGenerateServiceImpl cached;
+	JwtGenerateServiceImpl uncached;
+	String token;
+	String[] newTokens;
+	int next;
+
+	@Setup
+	public void setUp() {
+		cached = new JwtGenerateServiceImpl(new SecurityProperties());
+		var noCache = new SecurityProperties();
+		noCache.setTokenCacheSize(0);
+		uncached = new JwtGenerateServiceImpl(noCache);
+		token = cached.generateToken("teacher");
+		// a zero-size cache still holds an entry until eviction catches up, so tokens rotate
+		newTokens = new String[NEW_TOKENS];
+		for (int i = 0; i < NEW_TOKENS; i++) {
+			newTokens[i] = cached.generateToken("user-" + i);
+		}
+	}
+
+	@Benchmark
+	public String createToken() {
+		return cached.generateToken("teacher");
+	}
+
+	@Benchmark
+	public String validateCachedToken() {
+		return cached.validateAndGetUsername(token);
+	}
+
+	@Benchmark
+	public String validateNewToken() {
+		next = (next + 1) % NEW_TOKENS;
+		return uncached.validateAndGetUsername(newTokens[next]);
+	}
+}
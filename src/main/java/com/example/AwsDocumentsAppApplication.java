@@ -8,6 +8,7 @@ import org.springframework.boot.CommandLineRunner;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.context.annotation.Bean;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
 import com.example.dto.RoleEnum;
@@ -15,6 +16,7 @@ import com.example.entity.UserEntity;
 import com.example.repo.UserRepo;
 
 @SpringBootApplication
+@EnableScheduling
 public class AwsDocumentsAppApplication {
 	@Autowired
 	private UserRepo repo;
@@ -1,24 +1,156 @@
 package com.example.config;
 
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.util.StringUtils;
+
+import com.example.storage.impl.S3ConnectionPoolMetrics;
+import com.example.storage.impl.S3MultipartUploader;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
 
 import software.amazon.awssdk.auth.credentials.AwsBasicCredentials;
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
 import software.amazon.awssdk.auth.credentials.StaticCredentialsProvider;
+import software.amazon.awssdk.awscore.retry.AwsRetryStrategy;
+import software.amazon.awssdk.core.client.config.ClientOverrideConfiguration;
+import software.amazon.awssdk.http.apache.ApacheHttpClient;
+import software.amazon.awssdk.http.nio.netty.NettyNioAsyncHttpClient;
+import software.amazon.awssdk.metrics.MetricPublisher;
 import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
 import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
 
 @Configuration
+@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3", matchIfMissing = true)
 public class AwsConfig {
-	private static final String ACCESS_KEY = "";
-	private static final String SECRET_KEY = "";
-	
 	@Bean
-	S3Client s3Client() {
+	S3ConnectionPoolMetrics s3ConnectionPoolMetrics(MeterRegistry meterRegistry) {
+		return new S3ConnectionPoolMetrics(meterRegistry, "sync");
+	}
+
+	@Bean
+	S3ConnectionPoolMetrics s3AsyncConnectionPoolMetrics(MeterRegistry meterRegistry) {
+		return new S3ConnectionPoolMetrics(meterRegistry, "async");
+	}
+
+	/**
+	 * Pool state of both S3 clients and the totals of the blocking uploader, as gauges
+	 * and function meters over the counters they already keep.
+	 */
+	@Bean
+	MeterBinder s3Metrics(S3ConnectionPoolMetrics s3ConnectionPoolMetrics,
+			S3ConnectionPoolMetrics s3AsyncConnectionPoolMetrics, S3MultipartUploader s3MultipartUploader) {
+		return registry -> {
+			bindPool(registry, "sync", s3ConnectionPoolMetrics);
+			bindPool(registry, "async", s3AsyncConnectionPoolMetrics);
+			FunctionTimer.builder("storage.s3.uploads", s3MultipartUploader, S3MultipartUploader::getUploadCount,
+					uploader -> uploader.getUploadTime().toNanos(), TimeUnit.NANOSECONDS)
+					.description("Uploads through the blocking client, single request or multipart")
+					.register(registry);
+			FunctionCounter.builder("storage.s3.uploaded", s3MultipartUploader, S3MultipartUploader::getBytesUploaded)
+					.baseUnit(BaseUnits.BYTES)
+					.register(registry);
+		};
+	}
+
+	@Bean
+	S3Client s3Client(StorageProperties storageProperties, S3ConnectionPoolMetrics s3ConnectionPoolMetrics) {
+		var s3 = storageProperties.getS3();
 		return S3Client.builder()
-				.region(Region.AP_SOUTHEAST_2)
-	            .credentialsProvider(StaticCredentialsProvider.create(
-	                    AwsBasicCredentials.create(ACCESS_KEY, SECRET_KEY)))
+				.region(Region.of(s3.getRegion()))
+	            .credentialsProvider(credentialsProvider(s3))
+				.httpClientBuilder(ApacheHttpClient.builder()
+						.maxConnections(s3.getMaxConnections())
+						.connectionTimeout(s3.getConnectionTimeout())
+						.socketTimeout(s3.getSocketTimeout())
+						.connectionAcquisitionTimeout(s3.getConnectionAcquisitionTimeout())
+						.connectionTimeToLive(s3.getConnectionTimeToLive())
+						.connectionMaxIdleTime(s3.getConnectionMaxIdleTime())
+						.useIdleConnectionReaper(s3.isUseIdleConnectionReaper())
+						.tcpKeepAlive(s3.isTcpKeepAlive()))
+				.overrideConfiguration(override(s3, s3ConnectionPoolMetrics))
+				.build();
+	}
+
+	/**
+	 * Non-blocking client on Netty for the async endpoints. Large or unknown-length
+	 * uploads go through its multipart support with the same thresholds as the
+	 * blocking uploader.
+	 */
+	@Bean
+	S3AsyncClient s3AsyncClient(StorageProperties storageProperties, UploadProperties uploadProperties,
+			S3ConnectionPoolMetrics s3AsyncConnectionPoolMetrics) {
+		var s3 = storageProperties.getS3();
+		return S3AsyncClient.builder()
+				.region(Region.of(s3.getRegion()))
+				.credentialsProvider(credentialsProvider(s3))
+				.httpClientBuilder(NettyNioAsyncHttpClient.builder()
+						.maxConcurrency(s3.getAsyncMaxConcurrency())
+						.maxPendingConnectionAcquires(s3.getAsyncMaxPendingConnectionAcquires())
+						.connectionAcquisitionTimeout(s3.getAsyncConnectionAcquisitionTimeout())
+						.connectionTimeout(s3.getConnectionTimeout())
+						.readTimeout(s3.getSocketTimeout())
+						.writeTimeout(s3.getSocketTimeout())
+						.connectionTimeToLive(s3.getConnectionTimeToLive())
+						.connectionMaxIdleTime(s3.getConnectionMaxIdleTime())
+						.useIdleConnectionReaper(s3.isUseIdleConnectionReaper())
+						.tcpKeepAlive(s3.isTcpKeepAlive()))
+				.overrideConfiguration(override(s3, s3AsyncConnectionPoolMetrics))
+				.multipartEnabled(true)
+				.multipartConfiguration(multipart -> multipart
+						.thresholdInBytes(uploadProperties.getMultipartThreshold().toBytes())
+						.minimumPartSizeInBytes(uploadProperties.getPartSize().toBytes()))
+				.build();
+	}
+
+	@Bean
+	S3Presigner s3Presigner(StorageProperties storageProperties) {
+		var s3 = storageProperties.getS3();
+		return S3Presigner.builder()
+				.region(Region.of(s3.getRegion()))
+				.credentialsProvider(credentialsProvider(s3))
+				.build();
+	}
+
+	private void bindPool(MeterRegistry registry, String client, S3ConnectionPoolMetrics pool) {
+		Gauge.builder("storage.s3.connections", pool, S3ConnectionPoolMetrics::getLeased)
+				.tags("client", client, "state", "leased")
+				.register(registry);
+		Gauge.builder("storage.s3.connections", pool, S3ConnectionPoolMetrics::getAvailable)
+				.tags("client", client, "state", "available")
+				.register(registry);
+		Gauge.builder("storage.s3.connections.max", pool, S3ConnectionPoolMetrics::getMaxConnections)
+				.tag("client", client)
+				.register(registry);
+		Gauge.builder("storage.s3.connections.pending", pool, S3ConnectionPoolMetrics::getPending)
+				.tag("client", client)
+				.register(registry);
+	}
+
+	private ClientOverrideConfiguration override(StorageProperties.S3 s3, MetricPublisher metrics) {
+		return ClientOverrideConfiguration.builder()
+				.retryStrategy(AwsRetryStrategy.forRetryMode(s3.getRetryMode()).toBuilder()
+						.maxAttempts(s3.getMaxAttempts())
+						.build())
+				.addMetricPublisher(metrics)
 				.build();
 	}
+
+	private AwsCredentialsProvider credentialsProvider(StorageProperties.S3 s3) {
+		if (!StringUtils.hasText(s3.getAccessKey()))
+			return DefaultCredentialsProvider.create();
+
+		return StaticCredentialsProvider.create(AwsBasicCredentials.create(s3.getAccessKey(), s3.getSecretKey()));
+	}
 }
@@ -0,0 +1,9 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(CachingProperties.class)
+public class CacheConfig {
+}
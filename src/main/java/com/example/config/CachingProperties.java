@@ -0,0 +1,61 @@
+package com.example.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@ConfigurationProperties(prefix = "app.cache")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class CachingProperties {
+	User user = new User();
+	Document document = new Document();
+	Content content = new Content();
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class User {
+		/** Users whose principal is kept in memory. */
+		long maxSize = 10_000;
+
+		/** How long a cached user is trusted before it is read from the database again. */
+		Duration ttl = Duration.ofMinutes(5);
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Document {
+		/** Documents whose metadata is kept in memory. */
+		long maxSize = 10_000;
+
+		/** How long cached metadata is trusted; bounds staleness after deletes on other nodes. */
+		Duration ttl = Duration.ofMinutes(10);
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Content {
+		boolean enabled = true;
+
+		/** Files up to this size are kept on the heap. */
+		DataSize heapMaxFileSize = DataSize.ofKilobytes(256);
+
+		/** Total bytes of file content kept on the heap. */
+		DataSize heapMaxSize = DataSize.ofMegabytes(64);
+
+		/** Larger files up to this size are kept on local disk; bigger ones always go to storage. */
+		DataSize diskMaxFileSize = DataSize.ofMegabytes(64);
+
+		/** Total bytes of file content kept on local disk. */
+		DataSize diskMaxSize = DataSize.ofGigabytes(2);
+
+		/** Directory for the disk tier; it is emptied on startup. */
+		Path diskDirectory = Path.of("./data/cache");
+	}
+}
@@ -0,0 +1,43 @@
+package com.example.config;
+
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Document ids used to come from an identity column and now come from
+ * {@code documents_seq}. On a database created before that change, schema update
+ * adds the sequence starting at 1, below ids already taken; it is moved past them
+ * before anything is inserted.
+ */
+@Component
+@Slf4j
+@DependsOn("entityManagerFactory")
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentSequenceInitializer implements InitializingBean {
+	// ids are handed out in blocks below each value drawn, so the sequence must lead by one block
+	private static final int ALLOCATION_SIZE = 50;
+
+	JdbcTemplate jdbcTemplate;
+
+	@Override
+	public void afterPropertiesSet() {
+		Long maxId = jdbcTemplate.queryForObject("select max(id) from documents", Long.class);
+		Long nextValue = jdbcTemplate.queryForObject(
+				"select base_value from information_schema.sequences where sequence_name = 'DOCUMENTS_SEQ'",
+				Long.class);
+		if (maxId == null || nextValue == null || nextValue - ALLOCATION_SIZE >= maxId)
+			return;
+
+		long restart = maxId + ALLOCATION_SIZE + 1;
+		jdbcTemplate.execute("alter sequence documents_seq restart with " + restart);
+		log.info("Moved documents_seq to {}, past existing document ids", restart);
+	}
+}
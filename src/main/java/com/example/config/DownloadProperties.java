@@ -0,0 +1,21 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@ConfigurationProperties(prefix = "app.download")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DownloadProperties {
+	/** Downloads copied to clients at the same time, like the Tomcat request threads. */
+	int threads = 200;
+
+	/**
+	 * Downloads waiting for a thread once all are busy. When this is full as well, the
+	 * request thread copies the body itself instead of failing the download.
+	 */
+	int queueCapacity = 1000;
+}
@@ -1,19 +1,20 @@
 package com.example.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.MultipartConfigFactory;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.util.unit.DataSize;
 
 import jakarta.servlet.MultipartConfigElement;
 
 @Configuration
+@EnableConfigurationProperties(UploadProperties.class)
 public class FileUploadConfig {
 	@Bean
-	MultipartConfigElement multipartConfigElement() {
+	MultipartConfigElement multipartConfigElement(UploadProperties uploadProperties) {
 		MultipartConfigFactory factory = new MultipartConfigFactory();
-		factory.setMaxFileSize(DataSize.ofMegabytes(50)); // Set max file size
-		factory.setMaxRequestSize(DataSize.ofMegabytes(50)); // Set max request size
+		factory.setMaxFileSize(uploadProperties.getMaxFileSize()); // Set max file size
+		factory.setMaxRequestSize(uploadProperties.getMaxBatchSize()); // Set max request size
 		return factory.createMultipartConfig();
 	}
 }
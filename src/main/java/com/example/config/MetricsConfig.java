@@ -0,0 +1,53 @@
+package com.example.config;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.service.impl.DocumentContentCache;
+import com.example.service.impl.DocumentMetadataCache;
+import com.example.service.impl.UserServiceImpl;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * Publishes the statistics the caches already keep. Names follow Micrometer's own
+ * cache metrics ({@code cache.gets}, {@code cache.evictions}), so the usual
+ * dashboards work; the S3 pools and uploader are bound in {@link AwsConfig}.
+ */
+@Configuration
+public class MetricsConfig {
+	@Bean
+	MeterBinder cacheMetrics(UserServiceImpl userService, DocumentMetadataCache metadataCache,
+			DocumentContentCache contentCache) {
+		return registry -> {
+			bindCache(registry, "users", userService, UserServiceImpl::getCacheStats);
+			bindCache(registry, "documents", metadataCache, DocumentMetadataCache::getStats);
+			bindCache(registry, "document.content.heap", contentCache, DocumentContentCache::getHeapStats);
+			bindCache(registry, "document.content.disk", contentCache, DocumentContentCache::getDiskStats);
+			FunctionCounter.builder("document.content.served", contentCache, DocumentContentCache::getBytesServed)
+					.description("Bytes of document bodies served from the content cache")
+					.baseUnit(BaseUnits.BYTES)
+					.register(registry);
+		};
+	}
+
+	/** Counters read the stats through the cache owner, a bean, since meters only hold it weakly. */
+	private <T> void bindCache(MeterRegistry registry, String name, T owner, Function<T, CacheStats> stats) {
+		counter("cache.gets", name, owner, stats, CacheStats::hitCount).tag("result", "hit").register(registry);
+		counter("cache.gets", name, owner, stats, CacheStats::missCount).tag("result", "miss").register(registry);
+		counter("cache.evictions", name, owner, stats, CacheStats::evictionCount).register(registry);
+	}
+
+	private <T> FunctionCounter.Builder<T> counter(String meter, String cache, T owner, Function<T, CacheStats> stats,
+			ToDoubleFunction<CacheStats> value) {
+		return FunctionCounter.builder(meter, owner, o -> value.applyAsDouble(stats.apply(o)))
+				.tag("cache", cache);
+	}
+}
@@ -1,5 +1,6 @@
 package com.example.config;
 
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
@@ -15,6 +16,8 @@ import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.web.access.AccessDeniedHandler;
 import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
+
 import com.example.security.JwtAuthenFilter;
 
 import lombok.AccessLevel;
@@ -22,6 +25,7 @@ import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
 @Configuration
+@EnableConfigurationProperties(SecurityProperties.class)
 @RequiredArgsConstructor
 @FieldDefaults(level = AccessLevel.PRIVATE, makeFinal = true)
 public class SecurityConfig {
@@ -35,10 +39,15 @@ public class SecurityConfig {
 	SecurityFilterChain securityFilterChain(HttpSecurity http) throws Exception {
 		http
 			.authorizeHttpRequests(auth -> {
+				// the resumed half of an async request was authorized when it started
+				auth.dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll();
 				auth.requestMatchers("/api/get-token/").permitAll();
 				auth.requestMatchers("/api/get-token/", "/h2-console", "/h2-console/**").permitAll();
 				auth.requestMatchers("/api/documents/public/**").permitAll();
 				auth.requestMatchers("/error").permitAll();
+				// metrics reveal traffic and internals, so only health is open
+				auth.requestMatchers("/actuator/health", "/actuator/health/**").permitAll();
+				auth.requestMatchers("/actuator/prometheus").authenticated();
 				auth.requestMatchers("/api/documents/teacher/**").hasAuthority("TEACHER");
 				auth.requestMatchers(HttpMethod.POST, "/api/documents/**").hasAuthority("TEACHER");
 				auth.requestMatchers(HttpMethod.DELETE, "/api/documents/**").hasAuthority("TEACHER");
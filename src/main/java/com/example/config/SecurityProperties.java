@@ -0,0 +1,15 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@ConfigurationProperties(prefix = "app.security")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class SecurityProperties {
+	/** Verified tokens kept so each distinct token is signature-checked only once. */
+	long tokenCacheSize = 10_000;
+}
@@ -0,0 +1,125 @@
+package com.example.config;
+
+import java.nio.file.Path;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.example.storage.AsyncObjectStore;
+import com.example.storage.ObjectPresigner;
+import com.example.storage.ObjectStore;
+import com.example.storage.impl.BlockingAsyncObjectStore;
+import com.example.storage.impl.InMemoryObjectStore;
+import com.example.storage.impl.LocalObjectStore;
+import com.example.storage.impl.S3AsyncObjectStore;
+import com.example.storage.impl.S3MultipartUploader;
+import com.example.storage.impl.S3ObjectPresigner;
+import com.example.storage.impl.S3ObjectStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+
+@Configuration
+@EnableConfigurationProperties(StorageProperties.class)
+public class StorageConfig {
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3", matchIfMissing = true)
+	S3MultipartUploader s3MultipartUploader(S3Client s3Client, UploadProperties uploadProperties) {
+		return new S3MultipartUploader(s3Client, uploadProperties);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3", matchIfMissing = true)
+	ObjectStore s3ObjectStore(S3Client s3Client, S3MultipartUploader uploader, StorageProperties storageProperties,
+			MeterRegistry meterRegistry) {
+		return new S3ObjectStore(s3Client, uploader, storageProperties.getS3().getBucket(), meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3", matchIfMissing = true)
+	AsyncObjectStore s3AsyncObjectStore(S3AsyncClient s3AsyncClient, ExecutorService storageUploadExecutor,
+			StorageProperties storageProperties, MeterRegistry meterRegistry) {
+		return new S3AsyncObjectStore(s3AsyncClient, storageUploadExecutor, storageProperties.getS3().getBucket(),
+				meterRegistry);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "s3", matchIfMissing = true)
+	ObjectPresigner s3ObjectPresigner(S3Presigner s3Presigner, StorageProperties storageProperties) {
+		return new S3ObjectPresigner(s3Presigner, storageProperties.getS3().getBucket());
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+	ObjectStore localObjectStore(StorageProperties storageProperties) {
+		return new LocalObjectStore(Path.of(storageProperties.getLocal().getRoot()));
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "local")
+	AsyncObjectStore localAsyncObjectStore(ObjectStore localObjectStore, ExecutorService storageDownloadExecutor,
+			ExecutorService storageUploadExecutor) {
+		return new BlockingAsyncObjectStore(localObjectStore, storageDownloadExecutor, storageUploadExecutor);
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "memory")
+	ObjectStore inMemoryObjectStore() {
+		return new InMemoryObjectStore();
+	}
+
+	@Bean
+	@ConditionalOnProperty(name = "app.storage.type", havingValue = "memory")
+	AsyncObjectStore inMemoryAsyncObjectStore(ObjectStore inMemoryObjectStore, ExecutorService storageDownloadExecutor,
+			ExecutorService storageUploadExecutor) {
+		return new BlockingAsyncObjectStore(inMemoryObjectStore, storageDownloadExecutor, storageUploadExecutor);
+	}
+
+	/**
+	 * Threads that read request bodies of async uploads and store the files of batch
+	 * uploads. Each holds its thread until the whole body is in, however slowly the
+	 * client sends it, so uploads get their own pool and cannot starve downloads.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	ExecutorService storageUploadExecutor(StorageProperties storageProperties) {
+		return boundedPool("storage-upload-", storageProperties.getUploadPool());
+	}
+
+	/**
+	 * Threads that open documents ahead for ZIP downloads and read local or in-memory
+	 * bodies for async downloads, a chunk per task, so a thread is only held while a
+	 * read is in progress.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	ExecutorService storageDownloadExecutor(StorageProperties storageProperties) {
+		return boundedPool("storage-download-", storageProperties.getDownloadPool());
+	}
+
+	/**
+	 * At most {@code threads} run at once and {@code queueCapacity} tasks wait; further
+	 * work is rejected with a {@link RejectedExecutionException}, which callers turn
+	 * into a 503 or do themselves. Idle threads end after a minute.
+	 */
+	private ExecutorService boundedPool(String namePrefix, StorageProperties.Pool pool) {
+		AtomicInteger threadIndex = new AtomicInteger();
+		int threads = Math.max(1, pool.getThreads());
+		var executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, pool.getQueueCapacity())), r -> {
+					Thread thread = new Thread(r, namePrefix + threadIndex.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				}, new ThreadPoolExecutor.AbortPolicy());
+		executor.allowCoreThreadTimeOut(true);
+		return executor;
+	}
+}
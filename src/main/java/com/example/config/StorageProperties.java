@@ -0,0 +1,180 @@
+package com.example.config;
+
+import java.time.Duration;
+import java.util.List;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.http.MediaType;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import software.amazon.awssdk.core.retry.RetryMode;
+
+@Data
+@ConfigurationProperties(prefix = "app.storage")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StorageProperties {
+	/** Backend holding document bodies: {@code s3}, {@code local} or {@code memory}. */
+	StorageType type = StorageType.S3;
+
+	S3 s3 = new S3();
+
+	Local local = new Local();
+
+	Outbox outbox = new Outbox();
+
+	Presign presign = new Presign();
+
+	Archive archive = new Archive();
+
+	/**
+	 * Threads reading upload bodies for the async endpoint and storing files of batch
+	 * uploads. Each holds its thread for a whole body, as slow as the client sends it.
+	 */
+	Pool uploadPool = new Pool(64, 200);
+
+	/**
+	 * Threads opening and reading documents for ZIP downloads, and local or in-memory
+	 * bodies for the async download endpoint, a chunk at a time.
+	 */
+	Pool downloadPool = new Pool(64, 1000);
+
+	public enum StorageType {
+		S3, LOCAL, MEMORY;
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class S3 {
+		String bucket = "spring-boot--documents-app";
+
+		String region = "ap-southeast-2";
+
+		/** Static credentials; when blank the default AWS credentials chain is used. */
+		String accessKey = "";
+
+		String secretKey = "";
+
+		/**
+		 * HTTP connections to S3. Every request thread streaming a download holds one, so
+		 * this should not be lower than the number of concurrent transfers.
+		 */
+		int maxConnections = 200;
+
+		/** Time to establish a TCP connection to S3. */
+		Duration connectionTimeout = Duration.ofSeconds(2);
+
+		/** Time a connection may stay silent while a request or response is in transit. */
+		Duration socketTimeout = Duration.ofSeconds(30);
+
+		/** How long a request waits for a free connection before failing. */
+		Duration connectionAcquisitionTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * Pooled connections are closed after this age, so traffic moves to new S3
+		 * endpoints as DNS rotates them.
+		 */
+		Duration connectionTimeToLive = Duration.ofMinutes(5);
+
+		/** Idle connections older than this are closed by the reaper. */
+		Duration connectionMaxIdleTime = Duration.ofSeconds(60);
+
+		boolean useIdleConnectionReaper = true;
+
+		boolean tcpKeepAlive = true;
+
+		/**
+		 * SDK retry behaviour; the adaptive modes also slow the client down when S3
+		 * starts throttling instead of retrying at full rate.
+		 */
+		RetryMode retryMode = RetryMode.ADAPTIVE_V2;
+
+		/** Attempts per request, including the first one. */
+		int maxAttempts = 3;
+
+		/** Concurrent requests of the non-blocking client; each holds a connection but no thread. */
+		int asyncMaxConcurrency = 500;
+
+		/** Requests allowed to wait for a connection of the non-blocking client. */
+		int asyncMaxPendingConnectionAcquires = 10_000;
+
+		/** How long a request of the non-blocking client waits for a connection before failing. */
+		Duration asyncConnectionAcquisitionTimeout = Duration.ofSeconds(10);
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Local {
+		/** Directory under which object keys are stored as files. */
+		String root = "./data/objects";
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Presign {
+		/**
+		 * Lets clients move matching bodies directly to and from S3 through pre-signed
+		 * URLs, keeping large transfers off the application nodes. S3 storage only.
+		 */
+		boolean enabled = false;
+
+		/** Media types whose downloads are redirected to S3; wildcards such as video/* are allowed. */
+		List<MediaType> downloadTypes = List.of(MediaType.parseMediaType("video/*"));
+
+		/** Media types that may be uploaded straight to S3. */
+		List<MediaType> uploadTypes = List.of(MediaType.parseMediaType("video/*"));
+
+		Duration downloadUrlTtl = Duration.ofMinutes(5);
+
+		Duration uploadUrlTtl = Duration.ofMinutes(15);
+	}
+
+	@Data
+	@NoArgsConstructor
+	@AllArgsConstructor
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Pool {
+		int threads;
+
+		/** Work waiting for a thread; past it, work is refused rather than queued. */
+		int queueCapacity;
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Archive {
+		/**
+		 * Documents of a ZIP download opened ahead of the one being written. Each holds a
+		 * storage connection while it waits, so this bounds connections per download.
+		 */
+		int prefetch = 4;
+	}
+
+	@Data
+	@FieldDefaults(level = AccessLevel.PRIVATE)
+	public static class Outbox {
+		/** Delay between background sweeps of pending storage work. */
+		Duration interval = Duration.ofSeconds(5);
+
+		/** Keys taken per sweep; deletes are sent to the store in one batch call. */
+		int batchSize = 1000;
+
+		/** Upper bound of the exponential back-off between retries of a failed key. */
+		Duration maxBackoff = Duration.ofMinutes(10);
+
+		/**
+		 * An object whose upload has not been recorded as a document after this long is
+		 * taken as abandoned and deleted. Must exceed the longest upload.
+		 */
+		Duration pendingUploadTimeout = Duration.ofHours(1);
+
+		/**
+		 * How long a sweeper holds the entries it took; those of a sweeper that stopped
+		 * half way are taken again after this.
+		 */
+		Duration claimTimeout = Duration.ofMinutes(5);
+	}
+}
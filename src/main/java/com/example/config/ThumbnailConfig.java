@@ -0,0 +1,31 @@
+package com.example.config;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(ThumbnailProperties.class)
+public class ThumbnailConfig {
+	/**
+	 * Threads rendering thumbnails after uploads. The queue is bounded so a burst of
+	 * uploads cannot pile up work in memory; what does not fit is skipped.
+	 */
+	@Bean(destroyMethod = "shutdown")
+	ExecutorService thumbnailExecutor(ThumbnailProperties thumbnailProperties) {
+		int threads = Math.max(1, thumbnailProperties.getThreads());
+		AtomicInteger threadIndex = new AtomicInteger();
+		return new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<>(Math.max(1, thumbnailProperties.getQueueCapacity())), r -> {
+					Thread thread = new Thread(r, "thumbnail-" + threadIndex.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+	}
+}
@@ -0,0 +1,38 @@
+package com.example.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@ConfigurationProperties(prefix = "app.thumbnail")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class ThumbnailProperties {
+	/** Makes a JPEG preview of every uploaded image, PDF and video in the background. */
+	boolean enabled = true;
+
+	/** Longest side of a thumbnail, in pixels. */
+	int size = 320;
+
+	/** JPEG quality between 0 and 1. */
+	float quality = 0.8f;
+
+	/** Threads rendering thumbnails; the work is CPU bound. */
+	int threads = 2;
+
+	/** Uploads waiting for a thumbnail; beyond this, new uploads get none. */
+	int queueCapacity = 1000;
+
+	/** Originals above this size are not downloaded to make a thumbnail. */
+	DataSize maxSourceSize = DataSize.ofMegabytes(512);
+
+	/** Encoder used for video poster frames; videos get no thumbnail when it is not installed. */
+	String ffmpegPath = "ffmpeg";
+
+	Duration ffmpegTimeout = Duration.ofSeconds(30);
+}
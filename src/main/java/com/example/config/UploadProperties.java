@@ -0,0 +1,37 @@
+package com.example.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.AccessLevel;
+import lombok.Data;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@ConfigurationProperties(prefix = "app.upload")
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class UploadProperties {
+	/** Largest document accepted by the upload endpoints. */
+	DataSize maxFileSize = DataSize.ofMegabytes(50);
+
+	/** Files at or above this size are sent with the S3 multipart upload API. */
+	DataSize multipartThreshold = DataSize.ofMegabytes(16);
+
+	/** Size of each multipart part; S3 requires at least 5MB for all but the last part. */
+	DataSize partSize = DataSize.ofMegabytes(8);
+
+	/** Parts of a single upload that may be in flight (and buffered) at the same time. */
+	int partConcurrency = 4;
+
+	/** Threads shared by all uploads for sending parts. */
+	int workerThreads = 16;
+
+	/** Largest request of the batch upload endpoint, all of its files together. */
+	DataSize maxBatchSize = DataSize.ofGigabytes(2);
+
+	/** Files accepted by one batch upload. */
+	int maxBatchFiles = 100;
+
+	/** Files of one batch upload sent to storage at the same time. */
+	int batchConcurrency = 4;
+}
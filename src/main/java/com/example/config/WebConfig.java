@@ -0,0 +1,66 @@
+package com.example.config;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import lombok.extern.slf4j.Slf4j;
+
+@Configuration
+@Slf4j
+@EnableConfigurationProperties(DownloadProperties.class)
+public class WebConfig implements WebMvcConfigurer {
+	private static final long ASYNC_TIMEOUT = 30 * 60 * 1000; // 30 minutes
+
+	private final boolean virtualThreads;
+	private final DownloadProperties downloadProperties;
+
+	public WebConfig(Environment environment, DownloadProperties downloadProperties) {
+		this.virtualThreads = Threading.VIRTUAL.isActive(environment);
+		this.downloadProperties = downloadProperties;
+		if (!virtualThreads && environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false))
+			log.warn("spring.threads.virtual.enabled is set but needs Java 21 or later; using platform threads");
+	}
+
+	@Override
+	public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+		configurer.setTaskExecutor(downloadTaskExecutor());
+		configurer.setDefaultTimeout(ASYNC_TIMEOUT);
+	}
+
+	/**
+	 * Threads that copy object bodies to the client for {@code StreamingResponseBody}
+	 * responses. Every thread is started before any download queues, so downloads only
+	 * wait once all of them are busy; past the queue, the request thread copies the body
+	 * itself, which holds back new requests instead of failing them. In the experimental
+	 * virtual thread mode every download simply gets its own virtual thread.
+	 */
+	@Bean
+	AsyncTaskExecutor downloadTaskExecutor() {
+		if (virtualThreads) {
+			SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("download-");
+			executor.setVirtualThreads(true);
+			return executor;
+		}
+
+		ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+		// core and max alike: a pool only grows past its core size once the queue is full
+		executor.setCorePoolSize(downloadProperties.getThreads());
+		executor.setMaxPoolSize(downloadProperties.getThreads());
+		executor.setAllowCoreThreadTimeOut(true);
+		executor.setQueueCapacity(downloadProperties.getQueueCapacity());
+		executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+		executor.setThreadNamePrefix("download-");
+		executor.initialize();
+		return executor;
+	}
+}
@@ -0,0 +1,350 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+
+import com.example.dto.ContentCodec;
+import com.example.dto.DocumentInfo;
+import com.example.service.DocumentService;
+import com.example.storage.ObjectStream;
+
+import jakarta.servlet.AsyncContext;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Relays a document from {@link DocumentService#openFileAsync} to the client with
+ * servlet non-blocking I/O. The request thread returns right after the download is
+ * started, and a buffer is only requested from storage when the client connection
+ * can take more, so a slow client slows the S3 read instead of piling up memory or
+ * parking a thread. Documents stored compressed are only relayed to clients that
+ * accept the encoding, since inflating would block.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class AsyncDocumentStreamer {
+	private static final long ASYNC_TIMEOUT = 30 * 60 * 1000; // 30 minutes
+
+	DocumentService service;
+	ExceptionHandleController exceptionHandler;
+
+	public void stream(DocumentInfo info, HttpServletRequest request, HttpServletResponse response)
+			throws IOException {
+		ContentCodec codec = info.getCodec();
+		if (codec != null && !codec.isAcceptedBy(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+			byte[] message = ("Document is stored " + codec.getEncoding() + "-encoded; accept that encoding, "
+					+ "or download it from the blocking endpoint").getBytes(StandardCharsets.UTF_8);
+			response.setStatus(HttpStatus.NOT_ACCEPTABLE.value());
+			response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+			response.setContentLength(message.length);
+			response.getOutputStream().write(message);
+			return;
+		}
+
+		AsyncContext asyncContext = request.startAsync();
+		asyncContext.setTimeout(ASYNC_TIMEOUT);
+
+		var relay = new Relay(info, asyncContext, response, response.getOutputStream(), exceptionHandler);
+		asyncContext.addListener(relay);
+		response.getOutputStream().setWriteListener(relay);
+
+		service.openFileAsync(info, null, null).whenComplete((stream, error) -> {
+			if (error != null) {
+				relay.onError(error instanceof CompletionException ? error.getCause() : error);
+			} else {
+				relay.start(stream);
+			}
+		});
+	}
+
+	/**
+	 * @param encoding set when the stored bytes are sent as they are, compressed
+	 */
+	private static void writeHeaders(HttpServletResponse response, DocumentInfo info, long contentLength,
+			ContentCodec encoding) {
+		String etag = toETag(info.getEtag());
+		response.setStatus(HttpStatus.OK.value());
+		response.setContentType(MediaType.parseMediaType(info.getMime()).toString());
+		response.setContentLengthLong(contentLength);
+		response.setHeader(HttpHeaders.ETAG, encoding == null ? etag : encoding.toEncodedETag(etag));
+		response.setDateHeader(HttpHeaders.LAST_MODIFIED, info.getUploadAt().getTime());
+		if (encoding != null)
+			response.setHeader(HttpHeaders.CONTENT_ENCODING, encoding.getEncoding());
+		if (info.getCodec() != null)
+			response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+	}
+
+	private static String toETag(String etag) {
+		if (etag.startsWith("\"") || etag.startsWith("W/"))
+			return etag;
+		return "\"" + etag + "\"";
+	}
+
+	/**
+	 * Storage pushes buffers as they are requested, the container signals when the
+	 * connection can take more; both sides call {@link #drain()}, which writes while
+	 * the output is ready and requests the next buffer only after the previous one
+	 * was written.
+	 *
+	 * Nothing touches the response before the container's first
+	 * {@link #onWritePossible()}, which comes only after the request thread has left
+	 * the filter chain; writing earlier races with filters still adding headers.
+	 */
+	private static class Relay implements Subscriber<ByteBuffer>, WriteListener, AsyncListener {
+		private final DocumentInfo info;
+		private final AsyncContext asyncContext;
+		private final HttpServletResponse response;
+		private final ServletOutputStream out;
+		private final ExceptionHandleController exceptionHandler;
+		private final ReentrantLock lock = new ReentrantLock();
+
+		private ObjectStream stream;
+		private Throwable failure;
+		private Subscription subscription;
+		private ByteBuffer pending;
+		private boolean writable;
+		private boolean started;
+		private boolean requested;
+		private boolean completed;
+		private boolean finished;
+		private boolean draining;
+
+		Relay(DocumentInfo info, AsyncContext asyncContext, HttpServletResponse response, ServletOutputStream out,
+				ExceptionHandleController exceptionHandler) {
+			this.info = info;
+			this.asyncContext = asyncContext;
+			this.response = response;
+			this.out = out;
+			this.exceptionHandler = exceptionHandler;
+		}
+
+		void start(ObjectStream stream) {
+			update(() -> {
+				if (finished) {
+					release(stream);
+				} else {
+					this.stream = stream;
+				}
+			});
+		}
+
+		@Override
+		public void onSubscribe(Subscription subscription) {
+			update(() -> this.subscription = subscription);
+		}
+
+		@Override
+		public void onNext(ByteBuffer buffer) {
+			update(() -> {
+				pending = buffer;
+				requested = false;
+			});
+		}
+
+		@Override
+		public void onComplete() {
+			update(() -> completed = true);
+		}
+
+		/** Called both by storage ({@link Subscriber}) and by the container ({@link WriteListener}). */
+		@Override
+		public void onError(Throwable error) {
+			log.error("Async download failed: {}", error.getMessage(), error);
+			update(() -> {
+				if (failure == null)
+					failure = error;
+			});
+		}
+
+		@Override
+		public void onWritePossible() {
+			update(() -> writable = true);
+		}
+
+		@Override
+		public void onError(AsyncEvent event) {
+			log.warn("Client connection failed during download: {}", String.valueOf(event.getThrowable()));
+			abort();
+		}
+
+		@Override
+		public void onTimeout(AsyncEvent event) {
+			log.warn("Async download timed out");
+			abort();
+		}
+
+		@Override
+		public void onComplete(AsyncEvent event) {
+		}
+
+		@Override
+		public void onStartAsync(AsyncEvent event) {
+		}
+
+		private void update(Runnable change) {
+			lock.lock();
+			try {
+				change.run();
+			} finally {
+				lock.unlock();
+			}
+			drain();
+		}
+
+		/**
+		 * Writing can trigger a request, and a request can deliver the next buffer on
+		 * this same thread; the {@code draining} flag turns that recursion into another
+		 * turn of the loop.
+		 */
+		private void drain() {
+			lock.lock();
+			try {
+				if (draining || finished || !writable)
+					return;
+				draining = true;
+				try {
+					while (!finished) {
+						if (failure != null) {
+							respondFailure();
+						} else if (stream == null) {
+							return;
+						} else if (!started) {
+							started = true;
+							writeHeaders(response, info, stream.contentLength(), info.getCodec());
+							stream.body().subscribe(this);
+						} else if (subscription == null) {
+							return;
+						} else if (pending != null) {
+							if (!out.isReady())
+								return;
+							write(pending);
+							pending = null;
+						} else if (completed) {
+							// complete only once the last write has left the buffer
+							if (!out.isReady())
+								return;
+							finish();
+						} else if (!requested) {
+							requested = true;
+							subscription.request(1);
+						} else {
+							return;
+						}
+					}
+				} catch (IOException | IllegalStateException e) {
+					log.warn("Client connection failed during download: {}", e.getMessage());
+					abortLocked();
+				} finally {
+					draining = false;
+				}
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void write(ByteBuffer buffer) throws IOException {
+			if (buffer.hasArray()) {
+				out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+			} else {
+				byte[] bytes = new byte[buffer.remaining()];
+				buffer.get(bytes);
+				out.write(bytes);
+			}
+		}
+
+		/**
+		 * Before anything was sent the failure gets the status and message the
+		 * controller advice gives it on the blocking endpoints; afterwards the only
+		 * option is to cut the response short.
+		 */
+		private void respondFailure() throws IOException {
+			if (response.isCommitted() || !out.isReady()) {
+				abortLocked();
+				return;
+			}
+			var error = exceptionHandler.responseFor(failure);
+			byte[] message = String.valueOf(error.getBody()).getBytes(StandardCharsets.UTF_8);
+			response.reset();
+			response.setStatus(error.getStatusCode().value());
+			response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+			response.setContentLength(message.length);
+			out.write(message);
+			finish();
+		}
+
+		private void finish() {
+			finished = true;
+			releaseUnstarted();
+			asyncContext.complete();
+		}
+
+		private void abort() {
+			lock.lock();
+			try {
+				abortLocked();
+			} finally {
+				lock.unlock();
+			}
+		}
+
+		private void abortLocked() {
+			if (finished)
+				return;
+			finished = true;
+			if (subscription != null)
+				subscription.cancel();
+			releaseUnstarted();
+			asyncContext.complete();
+		}
+
+		/** An opened body that was never subscribed to still holds a connection or file. */
+		private void releaseUnstarted() {
+			if (stream != null && !started) {
+				started = true;
+				release(stream);
+			}
+		}
+
+		private static void release(ObjectStream stream) {
+			stream.body().subscribe(new Subscriber<ByteBuffer>() {
+				@Override
+				public void onSubscribe(Subscription subscription) {
+					subscription.cancel();
+				}
+
+				@Override
+				public void onNext(ByteBuffer buffer) {
+				}
+
+				@Override
+				public void onError(Throwable error) {
+				}
+
+				@Override
+				public void onComplete() {
+				}
+			});
+		}
+	}
+}
@@ -0,0 +1,152 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.config.StorageProperties;
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentResponse;
+import com.example.service.DocumentService;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Streams several documents to the client as one ZIP archive built while it is
+ * sent. Documents are opened a few at a time ahead of the one being written, so
+ * storage latency overlaps with the transfer, and each body is copied into its entry
+ * as it is read; no document is held in memory as a whole. Types that are already
+ * compressed are stored without deflating them again.
+ */
+@Slf4j
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class DocumentArchiveWriter {
+	private static final MediaType ZIP = MediaType.parseMediaType("application/zip");
+	private static final Set<String> COMPRESSED_TYPES = Set.of("application/zip", "application/vnd.rar",
+			"application/vnd.openxmlformats-officedocument.wordprocessingml.document",
+			"application/vnd.openxmlformats-officedocument.presentationml.presentation");
+
+	DocumentService service;
+	ExecutorService executor;
+	int prefetch;
+
+	public DocumentArchiveWriter(DocumentService service, ExecutorService storageDownloadExecutor,
+			StorageProperties storageProperties) {
+		this.service = service;
+		this.executor = storageDownloadExecutor;
+		this.prefetch = Math.max(1, storageProperties.getArchive().getPrefetch());
+	}
+
+	public ResponseEntity<StreamingResponseBody> serve(List<DocumentInfo> infos, String archiveName) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.setContentType(ZIP);
+		headers.setContentDisposition(ContentDisposition.attachment().filename(archiveName).build());
+		return ResponseEntity.ok().headers(headers).body(out -> write(infos, out));
+	}
+
+	private void write(List<DocumentInfo> infos, OutputStream out) throws IOException {
+		Deque<Pending> ahead = new ArrayDeque<>(prefetch);
+		Set<String> names = new HashSet<>();
+		int next = 0;
+		try (var zip = new ZipOutputStream(out)) {
+			while (next < infos.size() || !ahead.isEmpty()) {
+				while (next < infos.size() && ahead.size() < prefetch) {
+					DocumentInfo info = infos.get(next++);
+					ahead.add(new Pending(info, open(info)));
+				}
+
+				Pending pending = ahead.poll();
+				DocumentInfo info = pending.info();
+				try (var content = await(pending).getContent()) {
+					ZipEntry entry = new ZipEntry(entryName(info, names));
+					entry.setTime(info.getUploadAt().getTime());
+					zip.setLevel(isCompressed(info.getMime()) ? Deflater.NO_COMPRESSION : Deflater.DEFAULT_COMPRESSION);
+					zip.putNextEntry(entry);
+					content.stream().transferTo(zip);
+					zip.closeEntry();
+				}
+			}
+		} catch (IOException | RuntimeException e) {
+			log.warn("ZIP download of {} documents stopped: {}", infos.size(), e.getMessage());
+			throw e;
+		} finally {
+			// documents opened ahead but never written still hold a storage connection
+			for (Pending pending : ahead) {
+				pending.response().thenAccept(response -> closeQuietly(response));
+			}
+		}
+	}
+
+	private CompletableFuture<DocumentResponse> open(DocumentInfo info) {
+		try {
+			return CompletableFuture.supplyAsync(() -> service.openFile(info, null, null), executor);
+		} catch (RejectedExecutionException e) {
+			// every download thread is busy, so this one is opened without prefetching
+			return CompletableFuture.supplyAsync(() -> service.openFile(info, null, null), Runnable::run);
+		}
+	}
+
+	private DocumentResponse await(Pending pending) {
+		try {
+			return pending.response().join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException cause)
+				throw cause;
+			throw e;
+		}
+	}
+
+	/**
+	 * Names are the document names with their extension, made unique within the
+	 * archive and kept flat: a slash in a name would otherwise create folders.
+	 */
+	private String entryName(DocumentInfo info, Set<String> names) {
+		String base = info.getFileName().trim().replace('/', '_').replace('\\', '_');
+		String extension = info.getFileExtension() == null ? "" : "." + info.getFileExtension();
+		if (!extension.isEmpty() && base.toLowerCase(Locale.ROOT).endsWith(extension.toLowerCase(Locale.ROOT)))
+			base = base.substring(0, base.length() - extension.length());
+
+		String name = base + extension;
+		for (int copy = 2; !names.add(name.toLowerCase(Locale.ROOT)); copy++) {
+			name = base + " (" + copy + ")" + extension;
+		}
+		return name;
+	}
+
+	private boolean isCompressed(String mime) {
+		return mime != null && (mime.startsWith("image/") || mime.startsWith("video/") || COMPRESSED_TYPES.contains(mime));
+	}
+
+	private void closeQuietly(DocumentResponse response) {
+		try {
+			response.getContent().close();
+		} catch (IOException e) {
+			log.debug("Failed to close prefetched document", e);
+		}
+	}
+
+	private record Pending(DocumentInfo info, CompletableFuture<DocumentResponse> response) {
+	}
+}
@@ -0,0 +1,206 @@
+package com.example.controller;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.dto.ContentCodec;
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentResponse;
+import com.example.service.DocumentService;
+import com.example.storage.ObjectContent;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Builds download responses for documents: answers conditional requests from the
+ * stored metadata without touching the object store, and forwards byte ranges to it
+ * as ranged reads. Documents stored compressed are sent as they are to clients that
+ * accept the encoding, and decompressed for the others and for range requests.
+ * Types configured for direct download are answered with a redirect to a
+ * pre-signed storage URL instead, after the same checks.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+class DocumentDownloadHandler {
+	DocumentService service;
+
+	public ResponseEntity<StreamingResponseBody> serve(DocumentInfo info, HttpHeaders requestHeaders,
+			String attachmentName) {
+		String etag = toETag(info.getEtag());
+		long lastModified = info.getUploadAt().getTime();
+		ContentCodec codec = info.getCodec();
+		boolean sendEncoded = codec != null && codec.isAcceptedBy(requestHeaders.getFirst(HttpHeaders.ACCEPT_ENCODING));
+		String fullETag = sendEncoded ? codec.toEncodedETag(etag) : etag;
+
+		if (isNotModified(requestHeaders, fullETag, lastModified)) {
+			var notModified = ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+					.eTag(fullETag)
+					.lastModified(lastModified);
+			if (codec != null)
+				notModified.varyBy(HttpHeaders.ACCEPT_ENCODING);
+			return notModified.build();
+		}
+
+		String contentDisposition = attachmentName == null ? null : "attachment; filename=\"" + attachmentName + "\"";
+		var redirect = service.getDownloadRedirect(info, contentDisposition);
+		if (redirect.isPresent()) {
+			// the URL expires soon, so the redirect itself must not be cached
+			return ResponseEntity.status(HttpStatus.FOUND)
+					.location(redirect.get())
+					.cacheControl(CacheControl.noStore())
+					.build();
+		}
+
+		HttpHeaders headers = new HttpHeaders();
+		headers.setETag(etag);
+		headers.setLastModified(lastModified);
+		headers.set(HttpHeaders.ACCEPT_RANGES, "bytes");
+		if (codec != null)
+			headers.setVary(List.of(HttpHeaders.ACCEPT_ENCODING));
+		if (contentDisposition != null)
+			headers.set(HttpHeaders.CONTENT_DISPOSITION, contentDisposition);
+
+		List<HttpRange> ranges;
+		try {
+			ranges = isRangeApplicable(requestHeaders, etag, lastModified) ? requestHeaders.getRange() : List.of();
+		} catch (IllegalArgumentException e) {
+			return rangeNotSatisfiable(headers, info.getFileSize());
+		}
+
+		if (ranges.isEmpty() && sendEncoded) {
+			DocumentResponse response = service.openEncodedFile(info);
+			headers.setETag(fullETag);
+			headers.set(HttpHeaders.CONTENT_ENCODING, codec.getEncoding());
+			headers.setContentType(MediaType.parseMediaType(response.getMime()));
+			headers.setContentLength(response.getContentLength());
+			ObjectContent content = response.getContent();
+			return ResponseEntity.ok().headers(headers).body(content::transferTo);
+		}
+
+		if (ranges.isEmpty()) {
+			DocumentResponse response = service.openFile(info, null, null);
+			headers.setContentType(MediaType.parseMediaType(response.getMime()));
+			headers.setContentLength(response.getContentLength());
+			ObjectContent content = response.getContent();
+			return ResponseEntity.ok().headers(headers).body(content::transferTo);
+		}
+
+		long size = info.getFileSize();
+		List<long[]> bounds = new ArrayList<>(ranges.size());
+		try {
+			for (HttpRange range : ranges) {
+				long start = range.getRangeStart(size);
+				long end = range.getRangeEnd(size);
+				if (start >= size || start > end)
+					return rangeNotSatisfiable(headers, size);
+				bounds.add(new long[] { start, end });
+			}
+		} catch (IllegalArgumentException e) {
+			return rangeNotSatisfiable(headers, size);
+		}
+
+		if (bounds.size() == 1) {
+			long start = bounds.get(0)[0];
+			long end = bounds.get(0)[1];
+			DocumentResponse response = service.openFile(info, start, end);
+			headers.setContentType(MediaType.parseMediaType(response.getMime()));
+			headers.setContentLength(end - start + 1);
+			headers.set(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + size);
+			ObjectContent content = response.getContent();
+			return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT).headers(headers).body(content::transferTo);
+		}
+
+		String boundary = UUID.randomUUID().toString();
+		headers.setContentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary));
+		return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+				.headers(headers)
+				.body(out -> writeByteRanges(info, bounds, boundary, out));
+	}
+
+	/**
+	 * Each part is fetched with its own ranged read only when it is about to be
+	 * written, so at most one storage stream is open per response.
+	 */
+	private void writeByteRanges(DocumentInfo info, List<long[]> bounds, String boundary, OutputStream out)
+			throws IOException {
+		for (long[] bound : bounds) {
+			String partHeader = "\r\n--" + boundary + "\r\n"
+					+ HttpHeaders.CONTENT_TYPE + ": " + info.getMime() + "\r\n"
+					+ HttpHeaders.CONTENT_RANGE + ": bytes " + bound[0] + "-" + bound[1] + "/" + info.getFileSize()
+					+ "\r\n\r\n";
+			out.write(partHeader.getBytes(StandardCharsets.US_ASCII));
+			service.openFile(info, bound[0], bound[1]).getContent().transferTo(out);
+		}
+		out.write(("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII));
+		out.flush();
+	}
+
+	private ResponseEntity<StreamingResponseBody> rangeNotSatisfiable(HttpHeaders headers, long size) {
+		headers.set(HttpHeaders.CONTENT_RANGE, "bytes */" + size);
+		return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE).headers(headers).build();
+	}
+
+	private boolean isNotModified(HttpHeaders requestHeaders, String etag, long lastModified) {
+		List<String> ifNoneMatch = requestHeaders.getIfNoneMatch();
+		if (!ifNoneMatch.isEmpty()) {
+			return ifNoneMatch.stream().anyMatch(tag -> "*".equals(tag) || weakMatches(tag, etag));
+		}
+
+		long ifModifiedSince = requestHeaders.getIfModifiedSince();
+		return ifModifiedSince != -1 && toSeconds(lastModified) <= toSeconds(ifModifiedSince);
+	}
+
+	/**
+	 * A Range is only honoured when there is no If-Range, or when If-Range still
+	 * identifies the stored representation; otherwise the whole file is sent.
+	 */
+	private boolean isRangeApplicable(HttpHeaders requestHeaders, String etag, long lastModified) {
+		String ifRange = requestHeaders.getFirst(HttpHeaders.IF_RANGE);
+		if (ifRange == null)
+			return true;
+
+		if (ifRange.startsWith("\"") || ifRange.startsWith("W/"))
+			return ifRange.equals(etag);
+
+		try {
+			long date = requestHeaders.getFirstDate(HttpHeaders.IF_RANGE);
+			return date != -1 && toSeconds(lastModified) <= toSeconds(date);
+		} catch (IllegalArgumentException e) {
+			return false;
+		}
+	}
+
+	private boolean weakMatches(String tag, String etag) {
+		return stripWeak(tag).equals(stripWeak(etag));
+	}
+
+	private String stripWeak(String tag) {
+		return tag.startsWith("W/") ? tag.substring(2) : tag;
+	}
+
+	private String toETag(String etag) {
+		if (etag.startsWith("\"") || etag.startsWith("W/"))
+			return etag;
+		return "\"" + etag + "\"";
+	}
+
+	private long toSeconds(long millis) {
+		return millis / 1000;
+	}
+}
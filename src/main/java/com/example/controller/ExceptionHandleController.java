@@ -1,6 +1,7 @@
 package com.example.controller;
 
 import java.io.IOException;
+import java.util.concurrent.RejectedExecutionException;
 
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -8,6 +9,9 @@ import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.multipart.MaxUploadSizeExceededException;
 
+import com.example.storage.ObjectNotFoundException;
+import com.example.storage.StorageException;
+
 @RestControllerAdvice
 public class ExceptionHandleController {
 	@ExceptionHandler(MaxUploadSizeExceededException.class)
@@ -15,6 +19,24 @@ public class ExceptionHandleController {
 		return ResponseEntity.status(HttpStatus.PAYLOAD_TOO_LARGE).body("File size exceeds the maximum allowed size!");
 	}
 
+	/** A document whose body is missing from storage. */
+	@ExceptionHandler(ObjectNotFoundException.class)
+	public ResponseEntity<String> handleObjectNotFoundException(ObjectNotFoundException ex) {
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body("File not found");
+	}
+
+	/** Storage failed; the cause was logged where it happened and is not for clients. */
+	@ExceptionHandler(StorageException.class)
+	public ResponseEntity<String> handleStorageException(StorageException ex) {
+		return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Storage is unavailable, please try again later");
+	}
+
+	/** A storage thread pool is full; the client may try again shortly. */
+	@ExceptionHandler(RejectedExecutionException.class)
+	public ResponseEntity<String> handleRejectedExecutionException(RejectedExecutionException ex) {
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Server is busy, please try again later");
+	}
+
 	@ExceptionHandler(RuntimeException.class)
 	public ResponseEntity<String> handleRuntimeException(RuntimeException ex) {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
@@ -24,4 +46,24 @@ public class ExceptionHandleController {
 	public ResponseEntity<String> handleIOException(IOException ex) {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(ex.getMessage());
 	}
+
+	/**
+	 * The response the handlers above give for {@code ex}, for failures that happen
+	 * outside a controller call, such as those of an async download.
+	 */
+	public ResponseEntity<String> responseFor(Throwable ex) {
+		if (ex instanceof MaxUploadSizeExceededException maxSize)
+			return handleMaxSizeException(maxSize);
+		if (ex instanceof ObjectNotFoundException notFound)
+			return handleObjectNotFoundException(notFound);
+		if (ex instanceof StorageException storage)
+			return handleStorageException(storage);
+		if (ex instanceof RejectedExecutionException rejected)
+			return handleRejectedExecutionException(rejected);
+		if (ex instanceof RuntimeException runtime)
+			return handleRuntimeException(runtime);
+		if (ex instanceof IOException io)
+			return handleIOException(io);
+		return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body("Internal error");
+	}
 }
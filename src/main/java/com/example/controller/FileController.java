@@ -1,26 +1,45 @@
 package com.example.controller;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriUtils;
 
+import com.example.dto.BatchUploadResultDTO;
 import com.example.dto.DocumentDTO;
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentPage;
 import com.example.dto.FileDTO;
+import com.example.dto.FileStreamDTO;
 import com.example.dto.FileType;
+import com.example.dto.PresignUploadDTO;
+import com.example.dto.PresignedUploadDTO;
 import com.example.service.DocumentService;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
@@ -32,76 +51,127 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class FileController {
+	private static final Duration THUMBNAIL_MAX_AGE = Duration.ofDays(365);
+
 	DocumentService service;
+	DocumentDownloadHandler downloadHandler;
+	AsyncDocumentStreamer asyncStreamer;
+	DocumentArchiveWriter archiveWriter;
 
 	@GetMapping("")
-	public ResponseEntity<List<DocumentDTO>> findDocument(@RequestParam(name = "fileName") String fileName) {
+	public ResponseEntity<DocumentPage> findDocument(@RequestParam(name = "fileName") String fileName,
+			@RequestParam(name = "fileType", required = false) FileType fileType,
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "0") int size) {
 		return ResponseEntity.status(HttpStatus.OK)
-				.body(service.getAllByName(fileName));
+				.body(service.search(fileName, fileType, cursor, size));
 	}
 
 	@GetMapping("/student/")
-	public ResponseEntity<List<DocumentDTO>> getStudentDocuments() {
+	public ResponseEntity<DocumentPage> getStudentDocuments(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "0") int size) {
 		return ResponseEntity.status(HttpStatus.OK)
-				.body(service.getAll(FileType.STUDENT));
+				.body(service.getAll(FileType.STUDENT, cursor, size));
 	}
 	
 	@GetMapping("/public/")
-	public ResponseEntity<List<DocumentDTO>> getPublicDocuments() {
+	public ResponseEntity<DocumentPage> getPublicDocuments(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "0") int size) {
 		return ResponseEntity.status(HttpStatus.OK)
-				.body(service.getAll(FileType.PUBLIC));
+				.body(service.getAll(FileType.PUBLIC, cursor, size));
 	}
 
 	@GetMapping("/teacher/")
-	public ResponseEntity<List<DocumentDTO>> getTeacherDocuments() {
+	public ResponseEntity<DocumentPage> getTeacherDocuments(
+			@RequestParam(name = "cursor", required = false) String cursor,
+			@RequestParam(name = "size", defaultValue = "0") int size) {
 		return ResponseEntity.status(HttpStatus.OK)
-				.body(service.getAll(FileType.TEACHER));
+				.body(service.getAll(FileType.TEACHER, cursor, size));
 	}
 
 	@GetMapping("/{id}")
-	public ResponseEntity<Object> getFile(@PathVariable("id") String id) throws IOException {
-		var response = service.getFile(id, false);
-
-	    return ResponseEntity.ok()
-				.contentType(MediaType.parseMediaType(response.getMime()))
-	            .body(response.getData());
+	public ResponseEntity<StreamingResponseBody> getFile(@PathVariable("id") String id,
+			@RequestHeader HttpHeaders headers) throws IOException {
+		var info = service.getFileInfo(id, false);
+		return downloadHandler.serve(info, headers, null);
 	}
 
 	@GetMapping("/download/{id}")
-	public ResponseEntity<Object> downloadFile(@PathVariable("id") String id) throws IOException {
-		var response = service.getFile(id, false);
+	public ResponseEntity<StreamingResponseBody> downloadFile(@PathVariable("id") String id,
+			@RequestHeader HttpHeaders headers) throws IOException {
+		var info = service.getFileInfo(id, false);
 		String fileName = id.substring(id.lastIndexOf("/") + 1);
-		
-		MediaType mediaType = MediaType.parseMediaType(response.getMime());
-		log.info(mediaType.toString());
-		
-		return ResponseEntity.ok()
-				.contentType(mediaType)
-				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-				.body(response.getData());
+		return downloadHandler.serve(info, headers, fileName);
 	}
 	
-	@GetMapping("/public/{id}")
-	public ResponseEntity<Object> getPublicFile(@PathVariable("id") String id) throws IOException {
-		var response = service.getFile(id, true);
+	/**
+	 * Small JPEG preview of an image, PDF or video, made in the background after the
+	 * upload; 404 until it is ready and for other types. A document never changes
+	 * under its fileId, so clients may keep the thumbnail for a year.
+	 */
+	@GetMapping("/{id}/thumbnail")
+	public ResponseEntity<StreamingResponseBody> getThumbnail(@PathVariable("id") String id) {
+		var info = service.getFileInfo(id, false);
+		return serveThumbnail(info, CacheControl.maxAge(THUMBNAIL_MAX_AGE).cachePrivate().immutable());
+	}
 
-	    return ResponseEntity.ok()
-				.contentType(MediaType.parseMediaType(response.getMime()))
-	            .body(response.getData());
+	@GetMapping("/public/{id}/thumbnail")
+	public ResponseEntity<StreamingResponseBody> getPublicThumbnail(@PathVariable("id") String id) {
+		var info = service.getFileInfo(id, true);
+		return serveThumbnail(info, CacheControl.maxAge(THUMBNAIL_MAX_AGE).cachePublic().immutable());
+	}
+
+	/**
+	 * Several documents in one ZIP archive, either those listed in {@code fileId} or a
+	 * whole folder given by {@code fileType}. Access is checked for every document
+	 * before anything is sent.
+	 */
+	@GetMapping("/zip")
+	public ResponseEntity<StreamingResponseBody> downloadArchive(
+			@RequestParam(name = "fileId", required = false) List<String> fileIds,
+			@RequestParam(name = "fileType", required = false) FileType fileType) {
+		var infos = fileType != null
+				? service.getFileInfos(fileType)
+				: service.getFileInfos(fileIds == null ? List.of() : fileIds);
+		String archiveName = fileType != null ? fileType.name().toLowerCase(Locale.ROOT) + ".zip" : "documents.zip";
+		return archiveWriter.serve(infos, archiveName);
+	}
+
+	@GetMapping("/public/{id}")
+	public ResponseEntity<StreamingResponseBody> getPublicFile(@PathVariable("id") String id,
+			@RequestHeader HttpHeaders headers) throws IOException {
+		var info = service.getFileInfo(id, true);
+		return downloadHandler.serve(info, headers, null);
 	}
 
 	@GetMapping("/public/download/{id}")
-	public ResponseEntity<Object> downloadPublicFile(@PathVariable("id") String id) throws IOException {
-		var response = service.getFile(id, true);
+	public ResponseEntity<StreamingResponseBody> downloadPublicFile(@PathVariable("id") String id,
+			@RequestHeader HttpHeaders headers) throws IOException {
+		var info = service.getFileInfo(id, true);
 		String fileName = id.substring(id.lastIndexOf("/") + 1);
-		
-		MediaType mediaType = MediaType.parseMediaType(response.getMime());
-		System.out.println(mediaType);
-		
-		return ResponseEntity.ok()
-				.contentType(MediaType.parseMediaType(response.getMime()))
-				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"" + fileName + "\"")
-				.body(response.getData());
+		return downloadHandler.serve(info, headers, fileName);
+	}
+
+	/**
+	 * Non-blocking variant of {@code GET /{id}}: no thread is held while the body is
+	 * relayed from storage. Conditional and range requests, and clients that do not
+	 * accept the encoding of a compressed document (406), are only handled by the
+	 * blocking endpoints.
+	 */
+	@GetMapping("/async/{id}")
+	public void getFileAsync(@PathVariable("id") String id, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		var info = service.getFileInfo(id, false);
+		asyncStreamer.stream(info, request, response);
+	}
+
+	@GetMapping("/public/async/{id}")
+	public void getPublicFileAsync(@PathVariable("id") String id, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		var info = service.getFileInfo(id, true);
+		asyncStreamer.stream(info, request, response);
 	}
 
 	@DeleteMapping("/{id}")
@@ -110,6 +180,12 @@ public class FileController {
 		return new ResponseEntity<Void>(HttpStatus.OK);
 	}
 
+	@DeleteMapping("/")
+	public ResponseEntity<List<String>> deleteFiles(@RequestBody List<String> fileIds) {
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(service.deleteFiles(fileIds));
+	}
+
 	@PostMapping("/")
 	public ResponseEntity<Object> saveFile(@RequestParam("document") MultipartFile multipartFile,
 			@RequestParam("fileName") String fileName, @RequestParam("fileType") FileType fileType) throws IOException {
@@ -119,4 +195,96 @@ public class FileController {
 		var responseDto = service.saveFile(fileDto);
 		return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
 	}
+
+	/**
+	 * Several files in one request, all stored in the same folder. Each file is named
+	 * by the {@code fileName} at the same position, or after its own name when no name
+	 * is given for it. Every file gets its own result; the status is 201 when all of
+	 * them were stored and 207 otherwise.
+	 */
+	@PostMapping("/batch")
+	public ResponseEntity<List<BatchUploadResultDTO>> saveFiles(
+			@RequestParam("documents") List<MultipartFile> multipartFiles,
+			@RequestParam(name = "fileName", required = false) List<String> fileNames,
+			@RequestParam("fileType") FileType fileType) {
+
+		List<FileDTO> fileDtos = new ArrayList<>(multipartFiles.size());
+		for (int i = 0; i < multipartFiles.size(); i++) {
+			MultipartFile multipartFile = multipartFiles.get(i);
+			String fileName = fileNames != null && i < fileNames.size()
+					? fileNames.get(i)
+					: StringUtils.stripFilenameExtension(String.valueOf(multipartFile.getOriginalFilename()));
+			fileDtos.add(FileDTO.builder().multipartFile(multipartFile).fileName(fileName).fileType(fileType).build());
+		}
+
+		var results = service.saveFiles(fileDtos);
+		boolean allStored = results.stream().allMatch(result -> result.getError() == null);
+		return ResponseEntity.status(allStored ? HttpStatus.CREATED : HttpStatus.MULTI_STATUS).body(results);
+	}
+
+	/**
+	 * Upload without multipart: the body is the raw file and is piped to storage as
+	 * it is read, so nothing is spooled to disk or memory first. The name goes in
+	 * {@code X-File-Name}, percent-encoded when it is not ASCII.
+	 */
+	@PostMapping("/stream")
+	public ResponseEntity<Object> streamFile(HttpServletRequest request,
+			@RequestHeader("X-File-Name") String fileName, @RequestHeader("X-File-Type") FileType fileType)
+			throws IOException {
+
+		FileStreamDTO fileStreamDto = FileStreamDTO.builder()
+				.inputStream(request.getInputStream())
+				.fileName(UriUtils.decode(fileName, StandardCharsets.UTF_8))
+				.fileType(fileType)
+				.contentType(request.getContentType())
+				.contentLength(request.getContentLengthLong())
+				.build();
+
+		var responseDto = service.saveFile(fileStreamDto);
+		return ResponseEntity.status(HttpStatus.CREATED).body(responseDto);
+	}
+
+	/**
+	 * First step of a direct upload: returns a pre-signed URL the client PUTs the file
+	 * to, so the body never passes through this server.
+	 */
+	@PostMapping("/presigned")
+	public ResponseEntity<PresignedUploadDTO> presignUpload(@RequestBody PresignUploadDTO presignUploadDto) {
+		return ResponseEntity.status(HttpStatus.OK)
+				.body(service.presignUpload(presignUploadDto));
+	}
+
+	/** Second step of a direct upload, once the PUT succeeded: publishes the document. */
+	@PostMapping("/presigned/{id}/complete")
+	public ResponseEntity<DocumentDTO> completeUpload(@PathVariable("id") String id) {
+		return ResponseEntity.status(HttpStatus.CREATED)
+				.body(service.completeUpload(id));
+	}
+
+	@PostMapping("/async/stream")
+	public CompletableFuture<ResponseEntity<Object>> streamFileAsync(HttpServletRequest request,
+			@RequestHeader("X-File-Name") String fileName, @RequestHeader("X-File-Type") FileType fileType)
+			throws IOException {
+
+		FileStreamDTO fileStreamDto = FileStreamDTO.builder()
+				.inputStream(request.getInputStream())
+				.fileName(UriUtils.decode(fileName, StandardCharsets.UTF_8))
+				.fileType(fileType)
+				.contentType(request.getContentType())
+				.contentLength(request.getContentLengthLong())
+				.build();
+
+		return service.saveFileAsync(fileStreamDto)
+				.thenApply(responseDto -> ResponseEntity.status(HttpStatus.CREATED).body(responseDto));
+	}
+
+	private ResponseEntity<StreamingResponseBody> serveThumbnail(DocumentInfo info, CacheControl cacheControl) {
+		return service.openThumbnail(info)
+				.map(thumbnail -> ResponseEntity.ok()
+						.contentType(MediaType.parseMediaType(thumbnail.getMime()))
+						.contentLength(thumbnail.getContentLength())
+						.cacheControl(cacheControl)
+						.<StreamingResponseBody>body(thumbnail.getContent()::transferTo))
+				.orElseGet(() -> ResponseEntity.notFound().build());
+	}
 }
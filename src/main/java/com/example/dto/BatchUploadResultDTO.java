@@ -0,0 +1,24 @@
+package com.example.dto;
+
+import java.util.Date;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/** Outcome of one file of a batch upload: the stored document, or why it was refused. */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BatchUploadResultDTO {
+	String originalFileName;
+	String fileName;
+	String fileId;
+	Date uploadAt;
+	String error;
+}
@@ -0,0 +1,65 @@
+package com.example.dto;
+
+import java.util.Locale;
+
+/**
+ * Compression applied to a stored document body. Documents stored before codecs
+ * existed, and types that do not compress, have none.
+ */
+public enum ContentCodec {
+	GZIP("gzip");
+
+	private final String encoding;
+
+	ContentCodec(String encoding) {
+		this.encoding = encoding;
+	}
+
+	/** Token used for this codec in {@code Content-Encoding}. */
+	public String getEncoding() {
+		return encoding;
+	}
+
+	/**
+	 * Whether an {@code Accept-Encoding} header allows sending the stored bytes as they
+	 * are. Clients that send no header get the decoded body, since plain HTTP tools
+	 * would otherwise save the compressed bytes.
+	 */
+	public boolean isAcceptedBy(String acceptEncoding) {
+		if (acceptEncoding == null)
+			return false;
+		Boolean named = null;
+		Boolean wildcard = null;
+		for (String token : acceptEncoding.split(",")) {
+			String[] parts = token.trim().split(";");
+			String name = parts[0].trim().toLowerCase(Locale.ROOT);
+			boolean accepted = parts.length == 1 || !isZeroQuality(parts[1]);
+			if (name.equals(encoding) || name.equals("x-" + encoding)) {
+				named = accepted;
+			} else if (name.equals("*")) {
+				wildcard = accepted;
+			}
+		}
+		// an explicit entry wins over the wildcard
+		return named != null ? named : Boolean.TRUE.equals(wildcard);
+	}
+
+	/** ETag of the encoded representation, which has to differ from the decoded one. */
+	public String toEncodedETag(String etag) {
+		int closingQuote = etag.lastIndexOf('"');
+		if (closingQuote <= 0)
+			return etag + "-" + encoding;
+		return etag.substring(0, closingQuote) + "-" + encoding + etag.substring(closingQuote);
+	}
+
+	private static boolean isZeroQuality(String parameter) {
+		String[] nameValue = parameter.trim().split("=", 2);
+		if (nameValue.length != 2 || !nameValue[0].trim().equalsIgnoreCase("q"))
+			return false;
+		try {
+			return Double.parseDouble(nameValue[1].trim()) == 0;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+}
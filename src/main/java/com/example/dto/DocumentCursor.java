@@ -0,0 +1,31 @@
+package com.example.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Position after the last document of a page, in listing order
+ * ({@code uploadAt desc, id desc}). Sent to clients as an opaque token.
+ */
+public record DocumentCursor(Date uploadAt, Integer id) {
+	public static DocumentCursor of(DocumentSummary summary) {
+		return new DocumentCursor(summary.uploadAt(), summary.id());
+	}
+
+	public String encode() {
+		String raw = uploadAt.getTime() + ":" + id;
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+	}
+
+	public static DocumentCursor decode(String token) {
+		try {
+			String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.US_ASCII);
+			int separator = raw.indexOf(':');
+			return new DocumentCursor(new Date(Long.parseLong(raw.substring(0, separator))),
+					Integer.parseInt(raw.substring(separator + 1)));
+		} catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw new IllegalArgumentException("Invalid cursor: " + token);
+		}
+	}
+}
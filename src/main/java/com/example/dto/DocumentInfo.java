@@ -0,0 +1,31 @@
+package com.example.dto;
+
+import java.util.Date;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DocumentInfo {
+	Integer id;
+	String fileId;
+	String fileName;
+	String fileExtension;
+	String fileKey;
+	FileType fileType;
+	String mime;
+	long fileSize;
+	String etag;
+	String contentHash;
+	ContentCodec codec;
+	String thumbnailKey;
+	Date uploadAt;
+}
@@ -0,0 +1,22 @@
+package com.example.dto;
+
+import java.util.List;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class DocumentPage {
+	List<DocumentDTO> items;
+
+	/** Cursor for the next page, or {@code null} on the last page. */
+	String nextCursor;
+}
@@ -1,5 +1,7 @@
 package com.example.dto;
 
+import com.example.storage.ObjectContent;
+
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -10,5 +12,6 @@ import lombok.experimental.FieldDefaults;
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class DocumentResponse {
 	String mime;
-	byte[] data;
+	Long contentLength;
+	ObjectContent content;
 }
@@ -0,0 +1,6 @@
+package com.example.dto;
+
+import java.util.Date;
+
+public record DocumentSearchRow(Integer id, String fileId, String fileName, Date uploadAt, FileType fileType) {
+}
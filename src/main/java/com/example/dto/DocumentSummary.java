@@ -0,0 +1,10 @@
+package com.example.dto;
+
+import java.util.Date;
+
+/**
+ * Listing projection of a document: the columns a listing returns plus the id used
+ * as keyset tie-breaker.
+ */
+public record DocumentSummary(Integer id, String fileId, String fileName, Date uploadAt) {
+}
@@ -0,0 +1,35 @@
+package com.example.dto;
+
+import java.io.InputStream;
+
+import jakarta.annotation.Nonnull;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Upload read straight from the request body; {@code contentLength} is -1 when the
+ * client sends the body chunked.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class FileStreamDTO {
+	@Nonnull
+	InputStream inputStream;
+
+	@Nonnull
+	String fileName;
+
+	@Nonnull
+	FileType fileType;
+
+	String contentType;
+
+	long contentLength;
+}
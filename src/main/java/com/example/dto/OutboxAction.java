@@ -0,0 +1,5 @@
+package com.example.dto;
+
+public enum OutboxAction {
+	DELETE;
+}
@@ -0,0 +1,27 @@
+package com.example.dto;
+
+import java.time.Instant;
+import java.util.Map;
+
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Where to PUT the file: {@code uploadUrl} with every entry of {@code headers}
+ * before {@code expiresAt}, then complete the upload with {@code fileId}.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class PresignedUploadDTO {
+	String fileId;
+	String uploadUrl;
+	Map<String, String> headers;
+	Instant expiresAt;
+}
@@ -0,0 +1,61 @@
+package com.example.entity;
+
+import java.util.Date;
+
+import com.example.dto.ContentCodec;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * A stored object shared by every document with the same bytes. The object is
+ * removed from storage only when the last of those documents is deleted.
+ */
+@Entity
+@Table(name = "content_blobs", indexes = @Index(name = "idx_content_blobs_storage_key", columnList = "storageKey"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class BlobEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	Long id;
+
+	/** Hex SHA-256 of the object's bytes. */
+	@Column(nullable = false, unique = true, length = 64)
+	String contentHash;
+
+	@Column(nullable = false)
+	String storageKey;
+
+	/** Size of the content as uploaded, before any compression. */
+	@Column(nullable = false)
+	long size;
+
+	@Enumerated(EnumType.STRING)
+	ContentCodec codec;
+
+	String etag;
+
+	/** Documents pointing at this object. */
+	@Column(nullable = false)
+	int refCount;
+
+	@Column(nullable = false)
+	Date createdAt;
+}
@@ -2,6 +2,9 @@ package com.example.entity;
 
 import java.util.Date;
 
+import org.hibernate.annotations.ColumnDefault;
+
+import com.example.dto.ContentCodec;
 import com.example.dto.FileType;
 
 import jakarta.persistence.Column;
@@ -12,8 +15,10 @@ import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
+import jakarta.persistence.SequenceGenerator;
 import jakarta.persistence.Table;
 import lombok.AccessLevel;
 import lombok.AllArgsConstructor;
@@ -25,15 +30,17 @@ import lombok.ToString;
 import lombok.experimental.FieldDefaults;
 
 @Entity
-@Table(name = "documents")
+@Table(name = "documents", indexes = @Index(name = "idx_documents_listing", columnList = "fileType, deleted, uploadAt, id"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
 @FieldDefaults(level = AccessLevel.PRIVATE)
 public class DocumentEntity {
+	/** Drawn from a sequence rather than an identity column so inserts can be batched. */
 	@Id
-	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	@GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "documents_seq")
+	@SequenceGenerator(name = "documents_seq", sequenceName = "documents_seq", allocationSize = 50)
 	Integer id;
 
 	@Column(nullable = false)
@@ -52,6 +59,33 @@ public class DocumentEntity {
 	@Column(nullable = false)
 	Date uploadAt;
 
+	Long fileSize;
+
+	String etag;
+
+	/** Object store key, fixed at upload time; older rows get it on first read. */
+	String storageKey;
+
+	/** Hex SHA-256 of the body; documents with the same hash share one stored object. */
+	@Column(length = 64)
+	String contentHash;
+
+	/** JPEG preview stored next to the document, set once it has been made. */
+	String thumbnailKey;
+
+	/** Compression of the stored object; {@code null} when it holds the file as uploaded. */
+	@Enumerated(EnumType.STRING)
+	ContentCodec codec;
+
+	/**
+	 * Set when the document is deleted; its object is removed in the background. A
+	 * direct upload also starts out deleted and is revealed when completed, so an
+	 * abandoned one is cleaned up the same way.
+	 */
+	@Column(nullable = false)
+	@ColumnDefault("false")
+	boolean deleted;
+
 	@Column(nullable = false, insertable = false, updatable = false, name = "upload_by")
 	Integer uploadBy;
 
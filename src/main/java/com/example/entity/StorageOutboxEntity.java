@@ -0,0 +1,60 @@
+package com.example.entity;
+
+import java.util.Date;
+
+import com.example.dto.OutboxAction;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Storage work that has been committed in the database but not yet carried out on
+ * the object store, e.g. an object whose document was deleted.
+ */
+@Entity
+@Table(name = "storage_outbox", indexes = @Index(name = "idx_storage_outbox_due", columnList = "action, nextAttemptAt"))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+@FieldDefaults(level = AccessLevel.PRIVATE)
+public class StorageOutboxEntity {
+	@Id
+	@GeneratedValue(strategy = GenerationType.IDENTITY)
+	Long id;
+
+	@Column(nullable = false)
+	String storageKey;
+
+	@Column(nullable = false)
+	@Enumerated(EnumType.STRING)
+	OutboxAction action;
+
+	/** Document the object belonged to, removed once the object is gone. */
+	String fileId;
+
+	@Column(nullable = false)
+	Date createdAt;
+
+	@Column(nullable = false)
+	Date nextAttemptAt;
+
+	@Column(nullable = false)
+	int attempts;
+
+	/** When a sweeper took the entry; from then on it can no longer be cancelled. */
+	Date claimedAt;
+}
@@ -0,0 +1,30 @@
+package com.example.entity;
+
+import org.springframework.context.annotation.Lazy;
+import org.springframework.stereotype.Component;
+
+import com.example.service.UserService;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+
+/**
+ * Drops cached user principals whenever a user row changes. Users change rarely, so
+ * the whole cache is cleared rather than tracking renamed usernames.
+ */
+@Component
+public class UserCacheInvalidator {
+	private final UserService userService;
+
+	public UserCacheInvalidator(@Lazy UserService userService) {
+		this.userService = userService;
+	}
+
+	@PostPersist
+	@PostUpdate
+	@PostRemove
+	void onUserChanged(UserEntity user) {
+		userService.evictAll();
+	}
+}
@@ -6,6 +6,7 @@ import com.example.dto.RoleEnum;
 
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
+import jakarta.persistence.EntityListeners;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
 import jakarta.persistence.GeneratedValue;
@@ -21,6 +22,7 @@ import lombok.experimental.FieldDefaults;
 
 @Entity
 @Table(name = "users")
+@EntityListeners(UserCacheInvalidator.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -0,0 +1,27 @@
+package com.example.repo;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import com.example.entity.BlobEntity;
+
+import jakarta.persistence.LockModeType;
+
+@Repository
+public interface BlobRepo extends JpaRepository<BlobEntity, Long> {
+	/** Locks the row so concurrent uploads and deletes see each other's reference counts. */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	Optional<BlobEntity> findByContentHash(String contentHash);
+
+	boolean existsByContentHash(String contentHash);
+
+	@Query("select b.storageKey from BlobEntity b where b.storageKey in :storageKeys")
+	List<String> findStorageKeysIn(@Param("storageKeys") Collection<String> storageKeys);
+}
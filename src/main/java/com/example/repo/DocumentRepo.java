@@ -1,22 +1,71 @@
 package com.example.repo;
 
+import java.util.Collection;
+import java.util.Date;
 import java.util.List;
 import java.util.Optional;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import com.example.entity.DocumentEntity;
+import com.example.dto.DocumentSearchRow;
+import com.example.dto.DocumentSummary;
 import com.example.dto.FileType;
 
+import jakarta.persistence.LockModeType;
+
 
 @Repository
 public interface DocumentRepo extends JpaRepository<DocumentEntity, Integer> {
-	List<DocumentEntity> findAllByFileNameLike(String fileName);
-	
-	List<DocumentEntity> findAllByFileType(FileType fileType);
+//	@formatter:off
+	@Query("select new com.example.dto.DocumentSummary(d.id, d.fileId, d.fileName, d.uploadAt) "
+			+ "from DocumentEntity d "
+			+ "where d.fileType = :fileType and d.deleted = false "
+			+ "order by d.uploadAt desc, d.id desc")
+	List<DocumentSummary> findPageByFileType(@Param("fileType") FileType fileType, Limit limit);
+
+	@Query("select new com.example.dto.DocumentSummary(d.id, d.fileId, d.fileName, d.uploadAt) "
+			+ "from DocumentEntity d "
+			+ "where d.fileType = :fileType and d.deleted = false "
+			+ "and (d.uploadAt < :uploadAt or (d.uploadAt = :uploadAt and d.id < :id)) "
+			+ "order by d.uploadAt desc, d.id desc")
+	List<DocumentSummary> findPageByFileTypeAfter(@Param("fileType") FileType fileType,
+			@Param("uploadAt") Date uploadAt, @Param("id") Integer id, Limit limit);
+
+	@Query("select new com.example.dto.DocumentSearchRow(d.id, d.fileId, d.fileName, d.uploadAt, d.fileType) "
+			+ "from DocumentEntity d "
+			+ "where d.deleted = false")
+	List<DocumentSearchRow> findAllSearchable();
+//	@formatter:on
+
+	Optional<DocumentEntity> findOneByFileIdAndDeletedFalse(String fileId);
+
+	Optional<DocumentEntity> findOneByFileIdAndDeletedTrue(String fileId);
+
+	List<DocumentEntity> findAllByFileIdInAndDeletedFalse(Collection<String> fileIds);
+
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	List<DocumentEntity> findAllLockedByFileIdInAndDeletedFalse(Collection<String> fileIds);
+
+	@Modifying
+	@Transactional
+	@Query("update DocumentEntity d set d.deleted = true where d.deleted = false and d.fileId in :fileIds")
+	int markDeleted(@Param("fileIds") Collection<String> fileIds);
+
+	@Modifying
+	@Transactional
+	@Query("update DocumentEntity d set d.thumbnailKey = :thumbnailKey where d.deleted = false and d.fileId = :fileId")
+	int setThumbnailKey(@Param("fileId") String fileId, @Param("thumbnailKey") String thumbnailKey);
 
-	Optional<DocumentEntity> findOneByFileId(String fileId);
-	
-	void deleteByFileId(String fileId);
+	@Modifying
+	@Transactional
+	@Query("delete from DocumentEntity d where d.deleted = true and d.fileId in :fileIds")
+	int purgeDeleted(@Param("fileIds") Collection<String> fileIds);
 }
@@ -0,0 +1,40 @@
+package com.example.repo;
+
+import java.util.Date;
+import java.util.List;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dto.OutboxAction;
+import com.example.entity.StorageOutboxEntity;
+
+@Repository
+public interface StorageOutboxRepo extends JpaRepository<StorageOutboxEntity, Long> {
+	List<StorageOutboxEntity> findAllByActionAndNextAttemptAtBeforeOrderByIdAsc(OutboxAction action, Date now,
+			Limit limit);
+
+	/**
+	 * Takes an entry for one sweeper if it is still due, holding it until the lease
+	 * ends. A claimed entry can no longer be cancelled, and other sweepers only take
+	 * it again once the lease has run out.
+	 */
+	@Modifying
+	@Transactional
+	@Query("""
+			update StorageOutboxEntity e set e.claimedAt = :now, e.nextAttemptAt = :leaseEnd
+			where e.id = :id and e.nextAttemptAt < :now""")
+	int claim(@Param("id") Long id, @Param("now") Date now, @Param("leaseEnd") Date leaseEnd);
+
+	@Modifying
+	@Transactional
+	@Query("""
+			delete from StorageOutboxEntity e
+			where e.action = :action and e.storageKey = :storageKey and e.claimedAt is null""")
+	int cancel(@Param("action") OutboxAction action, @Param("storageKey") String storageKey);
+}
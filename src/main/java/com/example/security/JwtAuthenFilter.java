@@ -14,6 +14,8 @@ import org.springframework.web.filter.OncePerRequestFilter;
 import com.example.service.JwtGenerateService;
 import com.example.service.UserService;
 
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
@@ -28,6 +30,7 @@ import lombok.experimental.FieldDefaults;
 public class JwtAuthenFilter extends OncePerRequestFilter {
 	JwtGenerateService jwtGenerateService;
 	UserService userService;
+	MeterRegistry meterRegistry;
 
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
@@ -36,10 +39,12 @@ public class JwtAuthenFilter extends OncePerRequestFilter {
 		Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
 		if (StringUtils.hasText(token) && authentication == null) {
-			String userName = jwtGenerateService.extractUsername(token);
-			UserDetails userDetails = userService.loadUserByUsername(userName);
+			Timer.Sample validation = Timer.start(meterRegistry);
+			String userName = jwtGenerateService.validateAndGetUsername(token);
+			validation.stop(meterRegistry.timer("security.jwt.validation", "outcome", userName != null ? "valid" : "invalid"));
 
-			if (jwtGenerateService.validateToken(token, userDetails.getUsername())) {
+			if (userName != null) {
+				UserDetails userDetails = lookupUser(userName);
 				UsernamePasswordAuthenticationToken authenticationToken = new UsernamePasswordAuthenticationToken(
 						userDetails, null, userDetails.getAuthorities());
 				authenticationToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -50,6 +55,18 @@ public class JwtAuthenFilter extends OncePerRequestFilter {
 		doFilter(request, response, filterChain);
 	}
 
+	private UserDetails lookupUser(String userName) {
+		Timer.Sample lookup = Timer.start(meterRegistry);
+		String outcome = "failure";
+		try {
+			UserDetails userDetails = userService.loadUserByUsername(userName);
+			outcome = "success";
+			return userDetails;
+		} finally {
+			lookup.stop(meterRegistry.timer("security.user.lookup", "outcome", outcome));
+		}
+	}
+
 	private String getJWTFromRequest(HttpServletRequest request) {
 		String bearerToken = request.getHeader("Authorization");
 		if (StringUtils.hasText(bearerToken) && bearerToken.startsWith("Bearer ")) {
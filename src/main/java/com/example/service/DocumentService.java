@@ -1,20 +1,102 @@
 package com.example.service;
 
+import java.net.URI;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import com.example.dto.BatchUploadResultDTO;
 import com.example.dto.DocumentDTO;
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentPage;
 import com.example.dto.DocumentResponse;
 import com.example.dto.FileDTO;
+import com.example.dto.FileStreamDTO;
 import com.example.dto.FileType;
+import com.example.dto.PresignUploadDTO;
+import com.example.dto.PresignedUploadDTO;
+import com.example.storage.ObjectStream;
 
 public interface DocumentService {
 	void deleteFile(String fileId);
 
-	DocumentResponse getFile(String fileId, boolean isPublicFile);
+	List<String> deleteFiles(List<String> fileIds);
 
-	List<DocumentDTO> getAll(FileType fileType);
+	DocumentInfo getFileInfo(String fileId, boolean isPublicFile);
 
-	List<DocumentDTO> getAllByName(String name);
+	/**
+	 * Looks up several documents for a combined download, failing if any of them is
+	 * missing or not readable by the current user. Results keep the order of
+	 * {@code fileIds}, with repeats dropped.
+	 */
+	List<DocumentInfo> getFileInfos(List<String> fileIds);
+
+	/** Every document of a folder, newest first, under the same rules. */
+	List<DocumentInfo> getFileInfos(FileType fileType);
+
+	DocumentResponse openFile(DocumentInfo info, Long rangeStart, Long rangeEnd);
+
+	/**
+	 * Opens the body as it is stored, compressed with {@link DocumentInfo#getCodec()}
+	 * when that is set, for clients that accept the encoding.
+	 */
+	DocumentResponse openEncodedFile(DocumentInfo info);
+
+	/**
+	 * The JPEG preview made after the upload, if the document has one yet; images,
+	 * PDFs and videos get one.
+	 */
+	Optional<DocumentResponse> openThumbnail(DocumentInfo info);
+
+	/**
+	 * Non-blocking variant of {@link #openFile}: completes once storage has answered,
+	 * with the body still to be streamed.
+	 */
+	CompletableFuture<ObjectStream> openFileAsync(DocumentInfo info, Long rangeStart, Long rangeEnd);
+
+	/**
+	 * A pre-signed storage URL to send the client to instead of serving the body, when
+	 * direct downloads are enabled for the document's type.
+	 *
+	 * @param contentDisposition to be returned by storage, may be {@code null}
+	 */
+	Optional<URI> getDownloadRedirect(DocumentInfo info, String contentDisposition);
+
+	DocumentPage getAll(FileType fileType, String cursor, int size);
+
+	/**
+	 * Case-insensitive search on document names: every word of {@code query} must
+	 * match the start of a word in the name. An empty query is refused, and teacher
+	 * documents are only found by teachers.
+	 */
+	DocumentPage search(String query, FileType fileType, String cursor, int size);
 
 	DocumentDTO saveFile(FileDTO fileDTO);
+
+	/**
+	 * Stores several uploaded files, sending them to storage in parallel and saving
+	 * their documents together. A file that cannot be stored is reported in its result
+	 * without failing the others.
+	 */
+	List<BatchUploadResultDTO> saveFiles(List<FileDTO> fileDTOs);
+
+	/**
+	 * Stores a document read directly from the request body, passing bytes to the
+	 * object store as they arrive.
+	 */
+	DocumentDTO saveFile(FileStreamDTO fileStreamDTO);
+
+	/**
+	 * Like {@link #saveFile(FileStreamDTO)}, but returns as soon as the upload has
+	 * started; the document is recorded when storage has accepted the body.
+	 */
+	CompletableFuture<DocumentDTO> saveFileAsync(FileStreamDTO fileStreamDTO);
+
+	/**
+	 * Starts an upload that the client sends directly to storage. The document stays
+	 * hidden until {@link #completeUpload(String)} confirms the object arrived.
+	 */
+	PresignedUploadDTO presignUpload(PresignUploadDTO presignUploadDTO);
+
+	DocumentDTO completeUpload(String fileId);
 }
@@ -6,4 +6,10 @@ public interface JwtGenerateService {
 	String extractUsername(String token);
 
 	Boolean validateToken(String token, String username);
+
+	/**
+	 * Verifies the token once and returns its subject, or {@code null} when the token
+	 * is invalid or expired.
+	 */
+	String validateAndGetUsername(String token);
 }
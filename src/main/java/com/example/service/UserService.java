@@ -2,6 +2,14 @@ package com.example.service;
 
 import org.springframework.security.core.userdetails.UserDetailsService;
 
+import com.example.entity.UserEntity;
+
 public interface UserService extends UserDetailsService{
-//	void 
+	/**
+	 * Returns a reference to the user that can be used for associations without
+	 * loading the row.
+	 */
+	UserEntity getReference(String username);
+
+	void evictAll();
 }
@@ -0,0 +1,110 @@
+package com.example.service.impl;
+
+import java.util.Date;
+import java.util.Optional;
+
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.example.dto.ContentCodec;
+import com.example.dto.OutboxAction;
+import com.example.entity.BlobEntity;
+import com.example.entity.StorageOutboxEntity;
+import com.example.repo.BlobRepo;
+import com.example.repo.StorageOutboxRepo;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Reference counts of stored objects, keyed by the SHA-256 of their bytes, so that
+ * documents uploaded with identical content share one object. Counts change, and new
+ * blobs are inserted, in the caller's transaction under a row lock. Two uploads of
+ * the same bytes racing to create a blob make the later one fail on the unique hash
+ * with a {@link DataIntegrityViolationException}; its caller retries the transaction,
+ * which then finds the committed blob.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentBlobRegistry {
+	BlobRepo blobRepo;
+	StorageOutboxRepo outboxRepo;
+
+	/**
+	 * Whether these bytes are stored already. Only a hint taken without a lock; the
+	 * reference itself is taken by {@link #acquire}.
+	 */
+	public boolean isStored(String contentHash) {
+		return blobRepo.existsByContentHash(contentHash);
+	}
+
+	/** Takes a reference on the stored object holding these bytes, if there is one. */
+	@Transactional
+	public Optional<BlobEntity> acquire(String contentHash) {
+		return blobRepo.findByContentHash(contentHash).map(blob -> {
+			blob.setRefCount(blob.getRefCount() + 1);
+			return blob;
+		});
+	}
+
+	/**
+	 * Records a freshly uploaded object as the blob for its bytes and takes a
+	 * reference on it. If the same bytes were stored in the meantime, the existing
+	 * blob is referenced instead and the new object is queued for deletion. The insert
+	 * is flushed right away, so a concurrent registration of the same bytes fails
+	 * here with a {@link DataIntegrityViolationException}, leaving the transaction
+	 * to be rolled back and retried.
+	 */
+	@Transactional
+	public BlobEntity register(String contentHash, String storageKey, long size, String etag, ContentCodec codec) {
+		var existing = acquire(contentHash);
+		if (existing.isEmpty()) {
+			return blobRepo.saveAndFlush(BlobEntity.builder()
+					.contentHash(contentHash)
+					.storageKey(storageKey)
+					.size(size)
+					.etag(etag)
+					.codec(codec)
+					.refCount(1)
+					.createdAt(new Date())
+					.build());
+		}
+
+		var blob = existing.get();
+		log.info("Content of {} is already stored under {}", storageKey, blob.getStorageKey());
+		queueDelete(storageKey);
+		return blob;
+	}
+
+	/**
+	 * Drops a reference and tells whether it was the last one; the blob is then
+	 * forgotten and the caller is responsible for deleting its object.
+	 */
+	@Transactional
+	public boolean release(String contentHash) {
+		var blob = blobRepo.findByContentHash(contentHash).orElse(null);
+		if (blob == null)
+			return true;
+		if (blob.getRefCount() > 1) {
+			blob.setRefCount(blob.getRefCount() - 1);
+			return false;
+		}
+		blobRepo.delete(blob);
+		return true;
+	}
+
+	private void queueDelete(String storageKey) {
+		Date now = new Date();
+		outboxRepo.save(StorageOutboxEntity.builder()
+				.storageKey(storageKey)
+				.action(OutboxAction.DELETE)
+				.createdAt(now)
+				.nextAttemptAt(now)
+				.build());
+	}
+}
@@ -0,0 +1,160 @@
+package com.example.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+import org.springframework.stereotype.Component;
+
+import com.example.config.CachingProperties;
+import com.example.storage.ObjectContent;
+import com.example.storage.impl.LocalObjectStore;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Read-through cache of document bodies keyed by fileId. Small files are kept as
+ * byte arrays on the heap, larger ones as files in a local directory; anything above
+ * the disk limit is always read from the object store. Both tiers are bounded by
+ * total bytes and evicted with Caffeine's W-TinyLFU policy, so a burst of one-off
+ * downloads does not push out the handouts everyone keeps opening.
+ *
+ * Document bodies never change under a fileId, so entries only leave the cache when
+ * evicted or when the document is deleted. Every copy on disk gets a file name of its
+ * own, since Caffeine deletes removed copies asynchronously: a late removal then only
+ * deletes the copy it belongs to, never a newer one cached under the same fileId.
+ */
+@Component
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentContentCache {
+	boolean enabled;
+	long heapMaxFileSize;
+	long diskMaxFileSize;
+
+	Cache<String, byte[]> heap;
+	Cache<String, DiskCopy> disk;
+	LocalObjectStore diskStore;
+
+	AtomicLong copies = new AtomicLong();
+	AtomicLong bytesServed = new AtomicLong();
+
+	public DocumentContentCache(CachingProperties cachingProperties) {
+		var properties = cachingProperties.getContent();
+		this.enabled = properties.isEnabled();
+		this.heapMaxFileSize = properties.getHeapMaxFileSize().toBytes();
+		this.diskMaxFileSize = properties.getDiskMaxFileSize().toBytes();
+
+		this.heap = Caffeine.newBuilder()
+				.maximumWeight(properties.getHeapMaxSize().toBytes())
+				.weigher((String fileId, byte[] bytes) -> bytes.length)
+				.recordStats()
+				.build();
+
+		this.diskStore = enabled ? new LocalObjectStore(clear(properties.getDiskDirectory())) : null;
+		this.disk = Caffeine.newBuilder()
+				.maximumWeight(properties.getDiskMaxSize().toBytes())
+				.weigher((String fileId, DiskCopy copy) -> (int) Math.min(Integer.MAX_VALUE, copy.size()))
+				.removalListener((String fileId, DiskCopy copy, RemovalCause cause) -> diskStore.delete(copy.name()))
+				.recordStats()
+				.build();
+	}
+
+	/**
+	 * Returns bytes {@code start} to {@code end} (inclusive, or the whole file when
+	 * {@code start} is null), loading the whole file through {@code loader} on a miss.
+	 * Files too large to cache are opened through {@code passThrough} instead.
+	 */
+	public ObjectContent open(String fileId, long fileSize, Long start, Long end, Supplier<ObjectContent> loader,
+			Supplier<ObjectContent> passThrough) {
+		if (!enabled || fileSize > diskMaxFileSize)
+			return passThrough.get();
+
+		if (fileSize <= heapMaxFileSize) {
+			byte[] bytes = heap.get(fileId, key -> readAll(loader));
+			int offset = start == null ? 0 : (int) (long) start;
+			int length = start == null ? bytes.length : (int) (Math.min(end, bytes.length - 1) - start + 1);
+			bytesServed.addAndGet(length);
+			return ObjectContent.of(new ByteArrayInputStream(bytes, offset, length), length);
+		}
+
+		var copy = disk.get(fileId, key -> copyToDisk(key, loader));
+		try {
+			var content = start == null ? diskStore.get(copy.name()) : diskStore.getRange(copy.name(), start, end);
+			bytesServed.addAndGet(content.contentLength());
+			return content;
+		} catch (RuntimeException e) {
+			log.warn("Cached copy of {} is unreadable, reading from storage", fileId, e);
+			disk.invalidate(fileId);
+			return passThrough.get();
+		}
+	}
+
+	public void invalidateAll(Collection<String> fileIds) {
+		heap.invalidateAll(fileIds);
+		disk.invalidateAll(fileIds);
+	}
+
+	public CacheStats getHeapStats() {
+		return heap.stats();
+	}
+
+	public CacheStats getDiskStats() {
+		return disk.stats();
+	}
+
+	/** Bytes sent to clients from either tier since startup. */
+	public long getBytesServed() {
+		return bytesServed.get();
+	}
+
+	private byte[] readAll(Supplier<ObjectContent> loader) {
+		try (var content = loader.get()) {
+			return content.stream().readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private DiskCopy copyToDisk(String fileId, Supplier<ObjectContent> loader) {
+		String name = fileId + "." + copies.incrementAndGet();
+		try (var content = loader.get()) {
+			return new DiskCopy(name, diskStore.put(name, null, content.stream(), content.contentLength()).size());
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	/**
+	 * Copies left by a previous run are unknown to the new cache and would never be
+	 * evicted, so they are removed.
+	 */
+	private static Path clear(Path directory) {
+		if (Files.isDirectory(directory)) {
+			try (Stream<Path> files = Files.walk(directory)) {
+				files.sorted(Comparator.reverseOrder())
+						.filter(file -> !file.equals(directory))
+						.forEach(file -> file.toFile().delete());
+			} catch (IOException e) {
+				throw new UncheckedIOException("Failed to clear cache directory " + directory, e);
+			}
+		}
+		return directory;
+	}
+
+	private record DiskCopy(String name, long size) {
+	}
+}
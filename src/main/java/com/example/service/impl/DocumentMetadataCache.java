@@ -0,0 +1,64 @@
+package com.example.service.impl;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.springframework.stereotype.Component;
+
+import com.example.config.CachingProperties;
+import com.example.dto.DocumentInfo;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * What downloads and deletes need to know about a document, by fileId: folder,
+ * name, storage key and MIME type, plus the size and ETag used for conditional
+ * requests. Entries are shared between requests and must not be modified.
+ *
+ * Deletes on this node evict right away; the TTL bounds how long a document deleted
+ * through another node stays visible here.
+ */
+@Component
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentMetadataCache {
+	Cache<String, DocumentInfo> documents;
+
+	public DocumentMetadataCache(CachingProperties cachingProperties) {
+		this.documents = Caffeine.newBuilder()
+				.maximumSize(cachingProperties.getDocument().getMaxSize())
+				.expireAfterWrite(cachingProperties.getDocument().getTtl())
+				.recordStats()
+				.build();
+	}
+
+	public DocumentInfo get(String fileId, Function<String, DocumentInfo> loader) {
+		return documents.get(fileId, loader);
+	}
+
+	/**
+	 * Looks up many documents at once, loading all misses with a single call.
+	 * Documents the loader does not return are left out of the result.
+	 */
+	public Map<String, DocumentInfo> getAll(Collection<String> fileIds,
+			Function<Collection<String>, Map<String, DocumentInfo>> loader) {
+		return documents.getAll(fileIds, keys -> loader.apply(Set.copyOf(keys)));
+	}
+
+	public void put(DocumentInfo info) {
+		documents.put(info.getFileId(), info);
+	}
+
+	public void invalidateAll(Collection<String> fileIds) {
+		documents.invalidateAll(fileIds);
+	}
+
+	public CacheStats getStats() {
+		return documents.stats();
+	}
+}
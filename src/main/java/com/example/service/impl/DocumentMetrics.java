@@ -0,0 +1,92 @@
+package com.example.service.impl;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.example.dto.FileType;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.BaseUnits;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Latency and volume of the storage work behind documents, tagged by file type and
+ * extension: {@code documents.storage} times uploads, downloads and existence checks
+ * with a histogram, {@code documents.uploaded} and {@code documents.downloaded}
+ * count the bytes. A download is timed until its body is open, from the content
+ * cache or from storage; its bytes are counted when it is opened.
+ */
+@Component
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentMetrics {
+	public static final String UPLOAD = "upload";
+	public static final String DOWNLOAD = "download";
+	public static final String EXISTS = "exists";
+
+	MeterRegistry registry;
+
+	public <T> T time(String operation, FileType fileType, String extension, Supplier<T> action) {
+		Timer.Sample sample = Timer.start(registry);
+		boolean success = false;
+		try {
+			T result = action.get();
+			success = true;
+			return result;
+		} finally {
+			sample.stop(timer(operation, fileType, extension, success));
+		}
+	}
+
+	public <T> CompletableFuture<T> timeAsync(String operation, FileType fileType, String extension,
+			Supplier<CompletableFuture<T>> action) {
+		Timer.Sample sample = Timer.start(registry);
+		try {
+			return action.get().whenComplete(
+					(result, error) -> sample.stop(timer(operation, fileType, extension, error == null)));
+		} catch (RuntimeException e) {
+			sample.stop(timer(operation, fileType, extension, false));
+			throw e;
+		}
+	}
+
+	public void uploaded(FileType fileType, String extension, long bytes) {
+		bytes("documents.uploaded", fileType, extension).increment(bytes);
+	}
+
+	public void downloaded(FileType fileType, String extension, long bytes) {
+		bytes("documents.downloaded", fileType, extension).increment(bytes);
+	}
+
+	private Timer timer(String operation, FileType fileType, String extension, boolean success) {
+		return Timer.builder("documents.storage")
+				.tags(tags(fileType, extension))
+				.tag("operation", operation)
+				.tag("outcome", success ? "success" : "failure")
+				.publishPercentileHistogram()
+				.minimumExpectedValue(Duration.ofMillis(1))
+				.maximumExpectedValue(Duration.ofMinutes(10))
+				.register(registry);
+	}
+
+	private Counter bytes(String name, FileType fileType, String extension) {
+		return Counter.builder(name)
+				.baseUnit(BaseUnits.BYTES)
+				.tags(tags(fileType, extension))
+				.register(registry);
+	}
+
+	private Tags tags(FileType fileType, String extension) {
+		return Tags.of("file.type", String.valueOf(fileType),
+				"extension", extension == null ? "none" : extension.toLowerCase(Locale.ROOT));
+	}
+}
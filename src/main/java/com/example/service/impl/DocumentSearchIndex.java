@@ -0,0 +1,205 @@
+package com.example.service.impl;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.regex.Pattern;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.dto.DocumentCursor;
+import com.example.dto.DocumentSummary;
+import com.example.dto.FileType;
+import com.example.entity.DocumentEntity;
+import com.example.repo.DocumentRepo;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * In-memory inverted index over document names. Names are split into tokens that
+ * are lower-cased and stripped of diacritics, so "Bài giảng Java" is found by
+ * "bai", "GIANG" or "jav". Tokens live in a sorted map, which turns prefix lookups
+ * into a range scan instead of a table scan.
+ *
+ * The index is loaded at startup, updated by {@link DocumentServiceImpl} when
+ * documents are saved or deleted, and rebuilt periodically to pick up changes made
+ * by other nodes. Deleted documents are remembered for a while, so a rebuild that
+ * read its rows before a deletion does not bring them back.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentSearchIndex {
+	private static final long REBUILD_GRACE_MILLIS = 60 * 1000;
+	private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+	private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+	private static final Comparator<Entry> LISTING_ORDER = Comparator.comparing(Entry::uploadAt)
+			.thenComparing(Entry::id)
+			.reversed();
+
+	DocumentRepo documentRepo;
+
+	Map<Integer, Entry> entries = new ConcurrentHashMap<>();
+	ConcurrentSkipListMap<String, Set<Integer>> postings = new ConcurrentSkipListMap<>();
+	/** Ids removed from the index, with the time they were removed. */
+	Map<Integer, Long> removed = new ConcurrentHashMap<>();
+
+	@EventListener(ApplicationReadyEvent.class)
+	@Scheduled(initialDelayString = "${app.search.rebuild-interval:PT10M}", fixedDelayString = "${app.search.rebuild-interval:PT10M}")
+	public void rebuild() {
+		Date snapshotTime = new Date(System.currentTimeMillis() - REBUILD_GRACE_MILLIS);
+		var documents = documentRepo.findAllSearchable();
+		Set<Integer> live = new HashSet<>();
+		for (var document : documents) {
+			if (removed.containsKey(document.id()))
+				continue;
+			live.add(document.id());
+			add(document.id(), document.fileId(), document.fileName(), document.uploadAt(), document.fileType());
+			// removed while being added
+			if (removed.containsKey(document.id()))
+				remove(document.id());
+		}
+		// deletions from well before the read are no longer in the snapshot
+		removed.values().removeIf(removedAt -> removedAt < snapshotTime.getTime());
+		// documents saved while the snapshot was read are not in it but must stay
+		for (Entry entry : List.copyOf(entries.values())) {
+			if (!live.contains(entry.id()) && entry.uploadAt().before(snapshotTime))
+				remove(entry.id());
+		}
+		log.info("Search index holds {} documents and {} tokens", entries.size(), postings.size());
+	}
+
+	public void add(DocumentEntity document) {
+		add(document.getId(), document.getFileId(), document.getFileName(), document.getUploadAt(),
+				document.getFileType());
+	}
+
+	/** Removes deleted documents; they are not added back by a rebuild. */
+	public void removeAll(Collection<Integer> ids) {
+		long now = System.currentTimeMillis();
+		for (Integer id : ids) {
+			removed.put(id, now);
+			remove(id);
+		}
+	}
+
+	/**
+	 * Finds documents having, for every token of the query, a name token starting with
+	 * it; a query without tokens finds nothing. Results come in listing order and
+	 * continue after {@code after} when given. Only the first {@code limit} matches are
+	 * kept while scanning, so a broad query costs no full sort.
+	 *
+	 * @param fileTypes folders the results may come from
+	 */
+	public List<DocumentSummary> search(String query, Set<FileType> fileTypes, DocumentCursor after, int limit) {
+		List<String> queryTokens = tokenize(query);
+		if (queryTokens.isEmpty() || limit <= 0)
+			return List.of();
+
+		Set<Integer> matches = null;
+		for (String token : queryTokens) {
+			Set<Integer> ids = idsWithPrefix(token);
+			if (matches == null) {
+				matches = ids;
+			} else {
+				matches.retainAll(ids);
+			}
+			if (matches.isEmpty())
+				return List.of();
+		}
+
+		// the head is the last of the kept entries in listing order, dropped for a better one
+		PriorityQueue<Entry> top = new PriorityQueue<>(limit + 1, LISTING_ORDER.reversed());
+		for (Integer id : matches) {
+			Entry entry = entries.get(id);
+			if (entry == null || !fileTypes.contains(entry.fileType()) || (after != null && !isAfter(entry, after)))
+				continue;
+			top.add(entry);
+			if (top.size() > limit)
+				top.poll();
+		}
+
+		List<Entry> page = new ArrayList<>(top);
+		page.sort(LISTING_ORDER);
+		return page.stream()
+				.map(entry -> new DocumentSummary(entry.id(), entry.fileId(), entry.fileName(), entry.uploadAt()))
+				.toList();
+	}
+
+	private void add(Integer id, String fileId, String fileName, Date uploadAt, FileType fileType) {
+		List<String> tokens = tokenize(fileName);
+		Entry previous = entries.put(id, new Entry(id, fileId, fileName, uploadAt, fileType, tokens));
+		if (previous != null)
+			unlink(id, previous.tokens());
+		for (String token : tokens) {
+			// under the same lock as unlink, which drops the set once it is empty
+			postings.compute(token, (key, ids) -> {
+				if (ids == null)
+					ids = ConcurrentHashMap.newKeySet();
+				ids.add(id);
+				return ids;
+			});
+		}
+	}
+
+	private void remove(Integer id) {
+		Entry entry = entries.remove(id);
+		if (entry != null)
+			unlink(id, entry.tokens());
+	}
+
+	private void unlink(Integer id, List<String> tokens) {
+		for (String token : tokens) {
+			postings.computeIfPresent(token, (key, ids) -> {
+				ids.remove(id);
+				return ids.isEmpty() ? null : ids;
+			});
+		}
+	}
+
+	private Set<Integer> idsWithPrefix(String prefix) {
+		Set<Integer> ids = new HashSet<>();
+		postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false).values().forEach(ids::addAll);
+		return ids;
+	}
+
+	private boolean isAfter(Entry entry, DocumentCursor cursor) {
+		int byDate = entry.uploadAt().compareTo(cursor.uploadAt());
+		return byDate < 0 || (byDate == 0 && entry.id() < cursor.id());
+	}
+
+	static List<String> tokenize(String text) {
+		if (text == null)
+			return List.of();
+
+		String folded = DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+				.replace('đ', 'd')
+				.replace('Đ', 'D')
+				.toLowerCase(Locale.ROOT);
+		return SEPARATORS.splitAsStream(folded)
+				.filter(token -> !token.isEmpty())
+				.distinct()
+				.toList();
+	}
+
+	private record Entry(Integer id, String fileId, String fileName, Date uploadAt, FileType fileType,
+			List<String> tokens) {
+	}
+}
@@ -2,53 +2,107 @@ package com.example.service.impl;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URI;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 import java.util.Date;
+import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
 import org.springframework.web.multipart.MultipartFile;
 
+import com.example.config.StorageProperties;
+import com.example.config.UploadProperties;
+import com.example.dto.BatchUploadResultDTO;
+import com.example.dto.ContentCodec;
+import com.example.dto.DocumentCursor;
 import com.example.dto.DocumentDTO;
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentPage;
 import com.example.dto.DocumentResponse;
+import com.example.dto.DocumentSummary;
 import com.example.dto.FileDTO;
+import com.example.dto.FileStreamDTO;
 import com.example.dto.FileType;
+import com.example.dto.OutboxAction;
+import com.example.dto.PresignUploadDTO;
+import com.example.dto.PresignedUploadDTO;
+import com.example.entity.BlobEntity;
 import com.example.entity.DocumentEntity;
+import com.example.entity.StorageOutboxEntity;
 import com.example.entity.UserEntity;
 import com.example.repo.DocumentRepo;
-import com.example.repo.UserRepo;
+import com.example.repo.StorageOutboxRepo;
 import com.example.service.DocumentService;
+import com.example.service.UserService;
+import com.example.storage.AsyncObjectStore;
+import com.example.storage.ObjectPresigner;
+import com.example.storage.ObjectStore;
+import com.example.storage.ObjectStream;
 
 import lombok.AccessLevel;
 import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
-import software.amazon.awssdk.awscore.exception.AwsServiceException;
-import software.amazon.awssdk.core.exception.SdkException;
-import software.amazon.awssdk.core.sync.RequestBody;
-import software.amazon.awssdk.services.s3.S3Client;
-import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
-import software.amazon.awssdk.services.s3.model.GetObjectRequest;
-import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
-import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
-import software.amazon.awssdk.services.s3.model.PutObjectRequest;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class DocumentServiceImpl implements DocumentService {
-	UserRepo userRepo;
+	UserService userService;
 	DocumentRepo documentRepo;
-	S3Client s3Client;
+	StorageOutboxRepo outboxRepo;
+	DocumentBlobRegistry blobRegistry;
+	DocumentSearchIndex searchIndex;
+	DocumentMetadataCache metadataCache;
+	DocumentContentCache contentCache;
+	DocumentThumbnailer thumbnailer;
+	DocumentMetrics metrics;
+	ObjectStore objectStore;
+	AsyncObjectStore asyncObjectStore;
+	Optional<ObjectPresigner> presigner;
+	UploadProperties uploadProperties;
+	StorageProperties storageProperties;
+	ExecutorService storageUploadExecutor;
+	TransactionTemplate transactionTemplate;
 
-	private static final long MAX_FILE_SIZE = 50 * 1024 * 1024; // 50MB
+	private static final int DEFAULT_PAGE_SIZE = 50;
+	private static final int MAX_PAGE_SIZE = 200;
+	private static final int MAX_ARCHIVE_FILES = 1000;
+	private static final Duration UPLOAD_COMPLETION_GRACE = Duration.ofMinutes(30);
 	private static final Set<String> FILE_EXTENSIONS = Set.of("txt", "text", "docx", "pdf", "ppt", "pptx", "zip", "rar", "mp4",
 			"mkv", "avi", "jpg", "jpeg", "png");
 	private static final Map<String, String> MIME_TYPES = new HashMap<>();
@@ -68,143 +122,539 @@ public class DocumentServiceImpl implements DocumentService {
 	    MIME_TYPES.put("jpeg", "image/jpeg");
 	    MIME_TYPES.put("png", "image/png");
 	}
-	
-	private static final String BUCKET_NAME = "spring-boot--documents-app";
 
 //	@formatter:off
 	@Override
 	@Transactional
 	public void deleteFile(String fileId) {
-		var document = documentRepo.findOneByFileId(fileId)
-				.orElseThrow(() -> new RuntimeException("Does not exists fileId: " + fileId));
-		
-		String folder = getFolderByFileType(document.getFileType());
-		String fileKey = folder +  fileId
-				+ "-" + document.getFileName().trim();
-		log.info(fileKey);
+		var info = metadataCache.get(fileId, this::loadFileInfo);
+		if (markDeleted(List.of(info)).isEmpty())
+			throw new RuntimeException("Does not exists fileId: " + fileId);
+	}
+
+	@Override
+	@Transactional
+	public List<String> deleteFiles(List<String> fileIds) {
+		var infos = metadataCache.getAll(fileIds, this::loadFileInfos);
+		return markDeleted(List.copyOf(infos.values()));
+	}
+
+	@Override
+	public DocumentInfo getFileInfo(String fileId, boolean isPublicFile) {
+		if(!isPublicFile) {
+			if(!isLoggedIn())
+				throw new RuntimeException("Unauthorized");
+		}
 		
-	    if (!isFileExists(fileKey)) {
-	        throw new IllegalArgumentException("File not found");
-	    }
+		var info = metadataCache.get(fileId, this::loadFileInfo);
+		checkAccess(info, isPublicFile);
+		return info;
+	}
+
+	@Override
+	public List<DocumentInfo> getFileInfos(List<String> fileIds) {
+		if(!isLoggedIn())
+			throw new RuntimeException("Unauthorized");
+		var requested = new LinkedHashSet<>(fileIds);
+		if(requested.isEmpty())
+			throw new RuntimeException("No files requested");
+		if(requested.size() > MAX_ARCHIVE_FILES)
+			throw new RuntimeException("At most " + MAX_ARCHIVE_FILES + " files can be downloaded at once");
+
+		var infos = metadataCache.getAll(requested, this::loadFileInfos);
+		List<DocumentInfo> result = new ArrayList<>(requested.size());
+		for(String fileId : requested) {
+			var info = infos.get(fileId);
+			if(info == null)
+				throw new RuntimeException("Does not exists fileId: " + fileId);
+			checkAccess(info, false);
+			result.add(info);
+		}
+		return result;
+	}
+
+	@Override
+	public List<DocumentInfo> getFileInfos(FileType fileType) {
+		if(fileType.equals(FileType.TEACHER) && !containsAnyRole(List.of("TEACHER")))
+			throw new RuntimeException("Access Denied");
+		var summaries = documentRepo.findPageByFileType(fileType, Limit.of(MAX_ARCHIVE_FILES + 1));
+		if(summaries.isEmpty())
+			throw new RuntimeException("No documents in " + fileType);
+		return getFileInfos(summaries.stream().map(DocumentSummary::fileId).toList());
+	}
+
+	@Override
+	public DocumentResponse openFile(DocumentInfo info, Long rangeStart, Long rangeEnd) {
+		if (info.getCodec() == ContentCodec.GZIP) {
+			long start = rangeStart == null ? 0 : rangeStart;
+			long end = rangeStart == null ? info.getFileSize() - 1 : Math.min(rangeEnd, info.getFileSize() - 1);
+			var content = new GzipDecodedContent(openEncodedFile(info).getContent(), start, end - start + 1);
+			return new DocumentResponse(info.getMime(), content.contentLength(), content);
+		}
+
+		var content = metrics.time(DocumentMetrics.DOWNLOAD, info.getFileType(), info.getFileExtension(),
+				() -> contentCache.open(info.getFileId(), info.getFileSize(), rangeStart, rangeEnd,
+						() -> objectStore.get(info.getFileKey()),
+						() -> rangeStart == null
+								? objectStore.get(info.getFileKey())
+								: objectStore.getRange(info.getFileKey(), rangeStart, rangeEnd)));
+		metrics.downloaded(info.getFileType(), info.getFileExtension(), content.contentLength());
+		return new DocumentResponse(info.getMime(), content.contentLength(), content);
+	}
+
+	@Override
+	public DocumentResponse openEncodedFile(DocumentInfo info) {
+		var content = metrics.time(DocumentMetrics.DOWNLOAD, info.getFileType(), info.getFileExtension(),
+				() -> contentCache.open(info.getFileId(), info.getFileSize(), null, null,
+						() -> objectStore.get(info.getFileKey()),
+						() -> objectStore.get(info.getFileKey())));
+		metrics.downloaded(info.getFileType(), info.getFileExtension(), content.contentLength());
+		return new DocumentResponse(info.getMime(), content.contentLength(), content);
+	}
+
+	@Override
+	public Optional<DocumentResponse> openThumbnail(DocumentInfo info) {
+		if (info.getThumbnailKey() == null)
+			return Optional.empty();
+		var content = objectStore.get(info.getThumbnailKey());
+		return Optional.of(new DocumentResponse(DocumentThumbnailer.THUMBNAIL_MIME, content.contentLength(), content));
+	}
+
+	@Override
+	public CompletableFuture<ObjectStream> openFileAsync(DocumentInfo info, Long rangeStart, Long rangeEnd) {
+		return metrics.timeAsync(DocumentMetrics.DOWNLOAD, info.getFileType(), info.getFileExtension(),
+				() -> asyncObjectStore.getAsync(info.getFileKey(), rangeStart, rangeEnd))
+				.thenApply(stream -> {
+					metrics.downloaded(info.getFileType(), info.getFileExtension(), stream.contentLength());
+					return stream;
+				});
+	}
+
+	@Override
+	public Optional<URI> getDownloadRedirect(DocumentInfo info, String contentDisposition) {
+		var presign = storageProperties.getPresign();
+		// compressed objects stay here, they are decoded for clients that do not accept gzip
+		if (!presign.isEnabled() || presigner.isEmpty() || info.getCodec() != null
+				|| !matches(presign.getDownloadTypes(), info.getMime()))
+			return Optional.empty();
+
+		var request = presigner.get().presignGet(info.getFileKey(), presign.getDownloadUrlTtl(), info.getMime(),
+				contentDisposition);
+		return Optional.of(request.url());
+	}
+//	@formatter:on
+
+	@Override
+	public DocumentPage getAll(FileType fileType, String cursor, int size) {
+		var limit = Limit.of(pageSize(size) + 1);
+		var after = cursor == null ? null : DocumentCursor.decode(cursor);
+		var summaries = after == null
+				? documentRepo.findPageByFileType(fileType, limit)
+				: documentRepo.findPageByFileTypeAfter(fileType, after.uploadAt(), after.id(), limit);
+		return toPage(summaries, pageSize(size));
+	}
+
+	@Override
+	public DocumentPage search(String query, FileType fileType, String cursor, int size) {
+		if (query == null || query.isBlank())
+			throw new IllegalArgumentException("Search query is empty");
+		boolean teacher = containsAnyRole(List.of("TEACHER"));
+		if (fileType == FileType.TEACHER && !teacher)
+			throw new RuntimeException("Access Denied");
+		Set<FileType> fileTypes = fileType != null ? EnumSet.of(fileType)
+				: teacher ? EnumSet.allOf(FileType.class) : EnumSet.complementOf(EnumSet.of(FileType.TEACHER));
+
+		var after = cursor == null ? null : DocumentCursor.decode(cursor);
+		var summaries = searchIndex.search(query, fileTypes, after, pageSize(size) + 1);
+		return toPage(summaries, pageSize(size));
+	}
 
-	    deleteFileFromS3(fileKey);
-	    documentRepo.deleteByFileId(fileId);
+	@Override
+	public DocumentDTO saveFile(FileDTO fileDTO) {
+		var document = recordDocument(storeFile(fileDTO, getCurrentUser()));
+		publishSaved(document);
+
+		return toDto(document);
 	}
 
 	@Override
-	public DocumentResponse getFile(String fileId, boolean isPublicFile) {
-		try {			
-			if(!isPublicFile) {
-				if(!isLoggedIn())
-					throw new RuntimeException("Unauthorized");
+	public List<BatchUploadResultDTO> saveFiles(List<FileDTO> fileDTOs) {
+		if (fileDTOs.isEmpty())
+			throw new RuntimeException("No files uploaded");
+		if (fileDTOs.size() > uploadProperties.getMaxBatchFiles())
+			throw new RuntimeException("At most " + uploadProperties.getMaxBatchFiles() + " files can be uploaded at once");
+		// resolved here, the security context does not follow the upload to other threads
+		var user = getCurrentUser();
+
+		// a few workers send the files to storage, each taking the next file when done
+		var stored = new PendingDocument[fileDTOs.size()];
+		var errors = new String[fileDTOs.size()];
+		var nextFile = new AtomicInteger();
+		Runnable worker = () -> {
+			for (int i = nextFile.getAndIncrement(); i < fileDTOs.size(); i = nextFile.getAndIncrement()) {
+				try {
+					stored[i] = storeFile(fileDTOs.get(i), user);
+				} catch (RuntimeException e) {
+					log.warn("Failed to store {} of a batch upload: {}", fileDTOs.get(i).getFileName(), e.getMessage());
+					errors[i] = e.getMessage();
+				}
 			}
-			
-			var document = documentRepo.findOneByFileId(fileId)
-					.orElseThrow(() -> new RuntimeException("Does not exists fileId: " + fileId));
-			
-			if(isPublicFile && !document.getFileType().equals(FileType.PUBLIC))
-				throw new RuntimeException("This file is not public file");
-					
-			if(document.getFileType().equals(FileType.TEACHER)) {
-				if(!containsAnyRole(List.of("TEACHER")))
-					throw new RuntimeException("Access Denied");
+		};
+		int workers = Math.min(fileDTOs.size(), Math.max(1, uploadProperties.getBatchConcurrency()));
+		List<CompletableFuture<Void>> running = new ArrayList<>(workers);
+		try {
+			for (int i = 1; i < workers; i++)
+				running.add(CompletableFuture.runAsync(worker, storageUploadExecutor));
+		} catch (RejectedExecutionException e) {
+			// the upload pool is full; the workers that did start share the files
+			log.debug("Batch upload runs with {} of {} workers", running.size() + 1, workers);
+		}
+		worker.run();
+		running.forEach(CompletableFuture::join);
+
+		// one transaction for all rows, inserted in JDBC batches; a file that cannot be
+		// recorded is reported on its own
+		var storedIndexes = IntStream.range(0, stored.length).filter(i -> stored[i] != null).toArray();
+		var recordErrors = recordDocuments(Arrays.stream(storedIndexes).mapToObj(i -> stored[i]).toList());
+		for (int j = 0; j < storedIndexes.length; j++) {
+			int i = storedIndexes[j];
+			if (recordErrors.get(j) == null) {
+				publishSaved(stored[i].document());
+			} else {
+				log.warn("Failed to record {} of a batch upload: {}", fileDTOs.get(i).getFileName(), recordErrors.get(j));
+				errors[i] = recordErrors.get(j);
+				stored[i] = null;
 			}
-			
-			String folder = getFolderByFileType(document.getFileType());
-			String fileKey = folder +  fileId
-					+ "-" + document.getFileName().trim();
-			
-			GetObjectRequest getObjectRequest = GetObjectRequest.builder()
-					.bucket(BUCKET_NAME)
-					.key(fileKey)
-					.build();
-			String mime = MIME_TYPES.get(document.getFileExtension());
+		}
 
-			var s3Object = s3Client.getObject(getObjectRequest);
-			return new DocumentResponse(mime, s3Object.readAllBytes());
-		} catch (SdkException | IOException e) {
-			log.error("Failed to fetch file with ID: {} from S3", fileId, e);
-			throw new RuntimeException("Failed to get file from S3", e);
+		List<BatchUploadResultDTO> results = new ArrayList<>(fileDTOs.size());
+		for (int i = 0; i < fileDTOs.size(); i++) {
+			var result = BatchUploadResultDTO.builder()
+					.originalFileName(fileDTOs.get(i).getMultipartFile().getOriginalFilename())
+					.fileName(fileDTOs.get(i).getFileName())
+					.error(errors[i]);
+			if (stored[i] != null)
+				result.fileId(stored[i].document().getFileId()).uploadAt(stored[i].document().getUploadAt());
+			results.add(result.build());
 		}
+		return results;
 	}
-//	@formatter:on
 
 	@Override
-	public List<DocumentDTO> getAll(FileType fileType) {
-		var documents = documentRepo.findAllByFileType(fileType);
-		return documents.stream().map(d -> toDto(d)).toList();
+	public DocumentDTO saveFile(FileStreamDTO fileStreamDTO) {
+		String fileName = fileStreamDTO.getFileName();
+		validateFileName(fileName);
+		if (fileStreamDTO.getContentLength() >= 0)
+			validateFileSize(fileStreamDTO.getContentLength());
+
+		String fileId = UUID.randomUUID().toString();
+		String fileKey = buildFileKey(fileStreamDTO.getFileType(), fileId, fileName);
+		String extension = getFileExtension(fileName);
+		String contentType = MIME_TYPES.getOrDefault(extension.toLowerCase(), fileStreamDTO.getContentType());
+
+		var input = new SizeLimitedInputStream(fileStreamDTO.getInputStream(),
+				uploadProperties.getMaxFileSize().toBytes());
+		var digest = sha256();
+		ContentCodec codec = codecFor(extension);
+		InputStream body = encode(new DigestInputStream(input, digest), codec);
+		recordPendingUpload(fileKey);
+		String etag = metrics.time(DocumentMetrics.UPLOAD, fileStreamDTO.getFileType(), extension,
+				() -> streamToStorage(fileKey, contentType, body, codec == null ? fileStreamDTO.getContentLength() : -1));
+		metrics.uploaded(fileStreamDTO.getFileType(), extension, input.getCount());
+		// the hash is only known once the body went through, duplicates are dropped afterwards
+		var document = DocumentEntity.builder()
+				.fileId(fileId)
+				.fileName(fileName)
+				.fileExtension(extension)
+				.fileType(fileStreamDTO.getFileType())
+				.contentHash(HexFormat.of().formatHex(digest.digest()))
+				.uploadAt(new Date())
+				.user(getCurrentUser())
+				.build();
+		recordDocument(new PendingDocument(document, fileKey, input.getCount(), etag, codec));
+		publishSaved(document);
+
+		return toDto(document);
+	}
+
+	@Override
+	public CompletableFuture<DocumentDTO> saveFileAsync(FileStreamDTO fileStreamDTO) {
+		String fileName = fileStreamDTO.getFileName();
+		validateFileName(fileName);
+		if (fileStreamDTO.getContentLength() >= 0)
+			validateFileSize(fileStreamDTO.getContentLength());
+
+		String fileId = UUID.randomUUID().toString();
+		String fileKey = buildFileKey(fileStreamDTO.getFileType(), fileId, fileName);
+		String extension = getFileExtension(fileName);
+		String contentType = MIME_TYPES.getOrDefault(extension.toLowerCase(), fileStreamDTO.getContentType());
+		// resolved here, the security context does not follow the upload to other threads
+		var user = getCurrentUser();
+
+		long maxBytes = uploadProperties.getMaxFileSize().toBytes();
+		var input = new SizeLimitedInputStream(fileStreamDTO.getInputStream(), maxBytes);
+		var digest = sha256();
+		ContentCodec codec = codecFor(extension);
+		InputStream body = encode(new DigestInputStream(input, digest), codec);
+		recordPendingUpload(fileKey);
+		return metrics.timeAsync(DocumentMetrics.UPLOAD, fileStreamDTO.getFileType(), extension,
+				() -> asyncObjectStore.putAsync(fileKey, contentType, body,
+						codec == null ? fileStreamDTO.getContentLength() : -1))
+				.handle((metadata, e) -> {
+					if (e != null) {
+						// a read failure from the limit arrives wrapped by the storage client
+						if (input.getCount() > maxBytes)
+							throw new MaxUploadSizeExceededException(maxBytes);
+						throw e instanceof CompletionException completionException
+								? completionException
+								: new CompletionException(e);
+					}
+					log.info("File streamed successfully to storage with key: {}", fileKey);
+					metrics.uploaded(fileStreamDTO.getFileType(), extension, input.getCount());
+					var document = DocumentEntity.builder()
+							.fileId(fileId)
+							.fileName(fileName)
+							.fileExtension(extension)
+							.fileType(fileStreamDTO.getFileType())
+							.contentHash(HexFormat.of().formatHex(digest.digest()))
+							.uploadAt(new Date())
+							.user(user)
+							.build();
+					recordDocument(new PendingDocument(document, fileKey, input.getCount(), metadata.etag(), codec));
+					publishSaved(document);
+					return toDto(document);
+				});
 	}
 
 	@Override
-	public List<DocumentDTO> getAllByName(String name) {
-		var documents = documentRepo.findAllByFileNameLike(name);
-		return documents.stream().map(d -> toDto(d)).toList();
+	@Transactional
+	public PresignedUploadDTO presignUpload(PresignUploadDTO presignUploadDTO) {
+		String fileName = presignUploadDTO.getFileName();
+		validateFileName(fileName);
+		validateFileSize(presignUploadDTO.getFileSize());
+		String extension = getFileExtension(fileName);
+		String contentType = MIME_TYPES.get(extension.toLowerCase());
+
+		var presign = storageProperties.getPresign();
+		if (!presign.isEnabled() || presigner.isEmpty() || !matches(presign.getUploadTypes(), contentType))
+			throw new RuntimeException("Direct upload is not available for this file type");
+
+		String fileId = UUID.randomUUID().toString();
+		String fileKey = buildFileKey(presignUploadDTO.getFileType(), fileId, fileName);
+		var request = presigner.get().presignPut(fileKey, presign.getUploadUrlTtl(), contentType,
+				presignUploadDTO.getFileSize());
+
+		Date now = new Date();
+		documentRepo.save(DocumentEntity.builder()
+				.fileId(fileId)
+				.fileName(fileName)
+				.fileExtension(extension)
+				.fileType(presignUploadDTO.getFileType())
+				.fileSize(presignUploadDTO.getFileSize())
+				.storageKey(fileKey)
+				.deleted(true)
+				.uploadAt(now)
+				.user(getCurrentUser())
+				.build());
+		// cancelled on completion; otherwise removes whatever was uploaded
+		outboxRepo.save(StorageOutboxEntity.builder()
+				.storageKey(fileKey)
+				.action(OutboxAction.DELETE)
+				.fileId(fileId)
+				.createdAt(now)
+				.nextAttemptAt(Date.from(request.expiresAt().plus(UPLOAD_COMPLETION_GRACE.multipliedBy(2))))
+				.build());
+
+		return PresignedUploadDTO.builder()
+				.fileId(fileId)
+				.uploadUrl(request.url().toString())
+				.headers(request.headers())
+				.expiresAt(request.expiresAt())
+				.build();
 	}
 
+	/**
+	 * Pending uploads are the hidden rows without an ETag; deleted documents always
+	 * have one. Completion is accepted until well before the abandoned upload would be
+	 * cleaned up, so it never races the outbox sweeper.
+	 */
 	@Override
 	@Transactional
-	public DocumentDTO saveFile(FileDTO fileDTO) {
-		validateFile(fileDTO.getMultipartFile());
-		String fileId = uploadFileToS3(fileDTO);
-		String extension = getFileExtension(fileDTO.getMultipartFile().getOriginalFilename());
+	public DocumentDTO completeUpload(String fileId) {
+		var user = getCurrentUser();
+		var document = documentRepo.findOneByFileIdAndDeletedTrue(fileId)
+				.filter(pending -> pending.getEtag() == null && pending.getUploadBy().equals(user.getId()))
+				.orElseThrow(() -> new RuntimeException("Does not exists fileId: " + fileId));
 
-		var document = toEntity(fileDTO);
-		document.setFileId(fileId);
-		document.setFileExtension(extension);
+		var ttl = storageProperties.getPresign().getUploadUrlTtl();
+		long deadline = document.getUploadAt().getTime() + ttl.plus(UPLOAD_COMPLETION_GRACE).toMillis();
+		if (System.currentTimeMillis() > deadline)
+			throw new RuntimeException("Upload has expired: " + fileId);
+
+		var metadata = metrics.time(DocumentMetrics.EXISTS, document.getFileType(), document.getFileExtension(),
+				() -> objectStore.head(document.getStorageKey()))
+				.orElseThrow(() -> new RuntimeException("File has not been uploaded: " + fileId));
+		if (metadata.size() != document.getFileSize())
+			throw new RuntimeException("Uploaded file size does not match: " + fileId);
+		if (outboxRepo.cancel(OutboxAction.DELETE, document.getStorageKey()) == 0)
+			throw new RuntimeException("Upload has expired: " + fileId);
+
+		document.setEtag(metadata.etag());
+		document.setDeleted(false);
+		document.setUploadAt(new Date());
 		documentRepo.save(document);
+		afterCommit(() -> publishSaved(document));
 
 		return toDto(document);
 	}
 
 //	@formatter:off	
-	private void deleteFileFromS3(String fileId) {
-	    try {
-	        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
-	                .bucket(BUCKET_NAME)
-	                .key(fileId)
-	                .build();
-	
-	        s3Client.deleteObject(deleteObjectRequest);
-	        
-	    } catch (SdkException e) {
-	        if (e instanceof AwsServiceException awsServiceException) {
-	            log.error("S3 SDK error: {} - {}", awsServiceException.awsErrorDetails().errorCode(),
-	                    awsServiceException.awsErrorDetails().errorMessage(), e);
-	        } else {
-	            log.error("Unexpected SDK exception: {}", e.getMessage(), e);
-	        }
-	        throw new RuntimeException("S3 SDK error", e);
-	    } catch (Exception e) {
-	        log.error("Unexpected error while deleting file from S3: {}", e.getMessage(), e);
-	        throw new RuntimeException("Unexpected error while deleting file from S3", e);
-	    }
+	/**
+	 * Hides the documents right away and queues their objects for removal by
+	 * {@link StorageOutboxSweeper}, so deleting never waits on the object store.
+	 * Objects still shared with other documents are kept, and the rows of documents
+	 * that pointed at them are removed at once.
+	 */
+	private List<String> markDeleted(List<DocumentInfo> infos) {
+		if (infos.isEmpty())
+			return List.of();
+
+		var requested = infos.stream().map(DocumentInfo::getFileId).toList();
+		// locked so a concurrent delete of the same document cannot release its content twice
+		var live = documentRepo.findAllLockedByFileIdInAndDeletedFalse(requested);
+		if (live.isEmpty()) {
+			// every entry was already deleted through another node
+			metadataCache.invalidateAll(requested);
+			return List.of();
+		}
+
+		var liveIds = live.stream().map(DocumentEntity::getFileId).collect(Collectors.toSet());
+		var documents = infos.stream().filter(info -> liveIds.contains(info.getFileId())).toList();
+		var fileIds = documents.stream().map(DocumentInfo::getFileId).toList();
+		documentRepo.markDeleted(fileIds);
+
+		var contentHashes = live.stream()
+				.filter(document -> document.getContentHash() != null)
+				.collect(Collectors.toMap(DocumentEntity::getFileId, DocumentEntity::getContentHash));
+		Map<Boolean, List<DocumentInfo>> lastReference = documents.stream()
+				.collect(Collectors.partitioningBy(document -> {
+					String contentHash = contentHashes.get(document.getFileId());
+					return contentHash == null || blobRegistry.release(contentHash);
+				}));
+		var shared = lastReference.get(false).stream().map(DocumentInfo::getFileId).toList();
+		if (!shared.isEmpty())
+			documentRepo.purgeDeleted(shared);
+
+		Date now = new Date();
+		var entries = lastReference.get(true).stream().map(document -> {
+			log.info("Queued {} for deletion", document.getFileKey());
+			return StorageOutboxEntity.builder()
+					.storageKey(document.getFileKey())
+					.action(OutboxAction.DELETE)
+					.fileId(document.getFileId())
+					.createdAt(now)
+					.nextAttemptAt(now)
+					.build();
+		}).toList();
+		outboxRepo.saveAll(entries);
+
+		// thumbnails belong to one document, even when its content is shared
+		var thumbnails = live.stream()
+				.filter(document -> document.getThumbnailKey() != null)
+				.map(document -> StorageOutboxEntity.builder()
+						.storageKey(document.getThumbnailKey())
+						.action(OutboxAction.DELETE)
+						.createdAt(now)
+						.nextAttemptAt(now)
+						.build())
+				.toList();
+		outboxRepo.saveAll(thumbnails);
+
+		var ids = documents.stream().map(DocumentInfo::getId).toList();
+		afterCommit(() -> {
+			searchIndex.removeAll(ids);
+			metadataCache.invalidateAll(requested);
+			contentCache.invalidateAll(fileIds);
+		});
+		return fileIds;
 	}
 
-	private boolean isFileExists(String fileId) {
-	    try {
-	        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
-	                .bucket(BUCKET_NAME)
-	                .key(fileId)
-	                .build();
-	        s3Client.headObject(headObjectRequest); 
-	        return true;
-	    } catch (NoSuchKeyException e) {
-	        log.warn("File not found in S3 with fileId: {}", fileId);
-	        return false;
-	    } catch (SdkException e) {
-	        if (e instanceof AwsServiceException awsServiceException) {
-	            log.error("S3 SDK error: {} - {}", awsServiceException.awsErrorDetails().errorCode(),
-	                    awsServiceException.awsErrorDetails().errorMessage(), e);
-	        } else {
-	            log.error("Unexpected SDK exception: {}", e.getMessage(), e);
-	        }
-	        throw new RuntimeException("S3 SDK error", e);
-	    } catch (Exception e) {
-	        log.error("Unexpected error while checking file existence on S3: {}", e.getMessage(), e);
-	        throw new RuntimeException("Unexpected error while checking file existence on S3", e);
-	    }
+	private void checkAccess(DocumentInfo info, boolean isPublicFile) {
+		if(isPublicFile && !info.getFileType().equals(FileType.PUBLIC))
+			throw new RuntimeException("This file is not public file");
+
+		if(info.getFileType().equals(FileType.TEACHER)) {
+			if(!containsAnyRole(List.of("TEACHER")))
+				throw new RuntimeException("Access Denied");
+		}
+	}
+
+	private DocumentInfo loadFileInfo(String fileId) {
+		var document = documentRepo.findOneByFileIdAndDeletedFalse(fileId)
+				.orElseThrow(() -> new RuntimeException("Does not exists fileId: " + fileId));
+		return toInfo(document);
+	}
+
+	private Map<String, DocumentInfo> loadFileInfos(Collection<String> fileIds) {
+		return documentRepo.findAllByFileIdInAndDeletedFalse(fileIds).stream()
+				.collect(Collectors.toMap(DocumentEntity::getFileId, this::toInfo));
+	}
+
+	private DocumentInfo toInfo(DocumentEntity document) {
+		if(document.getFileSize() == null || document.getEtag() == null || document.getStorageKey() == null)
+			backfillObjectMetadata(document);
+
+		return DocumentInfo.builder()
+				.id(document.getId())
+				.fileId(document.getFileId())
+				.fileName(document.getFileName())
+				.fileExtension(document.getFileExtension())
+				.fileKey(document.getStorageKey())
+				.fileType(document.getFileType())
+				.mime(MIME_TYPES.get(document.getFileExtension()))
+				.fileSize(document.getFileSize())
+				.etag(document.getEtag())
+				.contentHash(document.getContentHash())
+				.codec(document.getCodec())
+				.thumbnailKey(document.getThumbnailKey())
+				.uploadAt(document.getUploadAt())
+				.build();
+	}
+
+	private void publishSaved(DocumentEntity document) {
+		searchIndex.add(document);
+		metadataCache.put(toInfo(document));
+		thumbnailer.schedule(document, buildThumbnailKey(document.getFileType(), document.getFileId()));
+	}
+
+	/**
+	 * Documents uploaded before size, ETag and storage key were recorded get them once,
+	 * the size and ETag from a single HEAD request, after which conditional and range
+	 * requests no longer need S3.
+	 */
+	private void backfillObjectMetadata(DocumentEntity document) {
+		String fileKey = document.getStorageKey() != null
+				? document.getStorageKey()
+				: buildFileKey(document.getFileType(), document.getFileId(), document.getFileName());
+		document.setStorageKey(fileKey);
+		if(document.getFileSize() == null || document.getEtag() == null) {
+			var metadata = metrics.time(DocumentMetrics.EXISTS, document.getFileType(), document.getFileExtension(),
+					() -> objectStore.head(fileKey))
+					.orElseThrow(() -> new RuntimeException("File not found in storage: " + fileKey));
+			document.setFileSize(metadata.size());
+			document.setEtag(metadata.etag());
+		}
+		documentRepo.save(document);
+	}
+
+	private String buildFileKey(FileType fileType, String fileId, String fileName) {
+		return getFolderByFileType(fileType) + fileId + "-" + fileName.trim();
 	}
 	
+	private String buildThumbnailKey(FileType fileType, String fileId) {
+		return getFolderByFileType(fileType) + fileId + ".thumbnail.jpg";
+	}
+
 	private String getFolderByFileType(FileType fileType) {
 		switch (fileType) {
 		case TEACHER:
@@ -223,9 +673,7 @@ public class DocumentServiceImpl implements DocumentService {
 		if (principal == null)
 			throw new RuntimeException("Unauthorized");
 		String username = ((UserDetails) principal.getPrincipal()).getUsername();
-		var user = userRepo.findByUsername(username)
-				.orElseThrow(() -> new RuntimeException("Username does not exists!!!"));
-		return user;
+		return userService.getReference(username);
 	}
 	
 	private boolean isLoggedIn() {
@@ -240,63 +688,231 @@ public class DocumentServiceImpl implements DocumentService {
 		return principal.getAuthorities().stream().anyMatch(a -> roles.contains(a.getAuthority()));
 	}
 	
-	private String uploadFileToS3(FileDTO dto) {
+	/**
+	 * Sends a spooled upload to storage, unless the same bytes are stored already, and
+	 * returns the document to be recorded for it. Runs outside any transaction.
+	 */
+	private PendingDocument storeFile(FileDTO fileDTO, UserEntity user) {
+		validateFile(fileDTO.getMultipartFile());
+		validateKeyName(fileDTO.getFileName());
+		String fileId = UUID.randomUUID().toString();
+		String extension = getFileExtension(fileDTO.getMultipartFile().getOriginalFilename());
+		var document = toEntity(fileDTO, user);
+		document.setFileId(fileId);
+		document.setFileExtension(extension);
+		// the upload is already spooled locally, so bytes stored before are never sent again
+		document.setContentHash(hash(fileDTO.getMultipartFile()));
+		if (blobRegistry.isStored(document.getContentHash()))
+			return new PendingDocument(document, null, 0, null, null);
+
+		String fileKey = buildFileKey(fileDTO.getFileType(), fileId, fileDTO.getFileName());
+		ContentCodec codec = codecFor(extension);
+		recordPendingUpload(fileKey);
+		String etag = metrics.time(DocumentMetrics.UPLOAD, fileDTO.getFileType(), extension,
+				() -> uploadFileToS3(fileDTO, fileKey, codec));
+		metrics.uploaded(fileDTO.getFileType(), extension, fileDTO.getMultipartFile().getSize());
+		return new PendingDocument(document, fileKey, fileDTO.getMultipartFile().getSize(), etag, codec);
+	}
+
+	/**
+	 * Queues the key of an upload about to start for deletion once it is overdue. The
+	 * entry is cancelled when the document is recorded, so an upload that fails, or
+	 * whose node stops half way, leaves no object behind.
+	 */
+	private void recordPendingUpload(String fileKey) {
+		Date now = new Date();
+		var timeout = storageProperties.getOutbox().getPendingUploadTimeout();
+		outboxRepo.save(StorageOutboxEntity.builder()
+				.storageKey(fileKey)
+				.action(OutboxAction.DELETE)
+				.createdAt(now)
+				.nextAttemptAt(new Date(now.getTime() + timeout.toMillis()))
+				.build());
+	}
+
+	/** Records a single upload, failing when it cannot be. */
+	private DocumentEntity recordDocument(PendingDocument upload) {
+		String error = recordDocuments(List.of(upload)).get(0);
+		if (error != null)
+			throw new RuntimeException(error);
+		return upload.document();
+	}
+
+	/**
+	 * The one transaction of an upload, taken only once the bodies are in storage so a
+	 * connection is held for milliseconds: takes a reference on the stored bytes of
+	 * every document and inserts them. It is run a second time when a concurrent upload
+	 * of the same bytes registered their blob first, which the retry then references.
+	 *
+	 * Returns, for each upload in order, null once its document is saved or why it was
+	 * not; such an upload is left out while the others are still inserted. The objects
+	 * of uploads that are not recorded, or all of them when the transaction fails, are
+	 * handed to the outbox sweeper right away instead of when their pending entry falls
+	 * due.
+	 */
+	private List<String> recordDocuments(List<PendingDocument> pending) {
+		try {
+			try {
+				return transactionTemplate.execute(status -> insertDocuments(pending));
+			} catch (DataIntegrityViolationException e) {
+				log.info("Content of an upload was registered concurrently, recording it again: {}", e.getMessage());
+				return transactionTemplate.execute(status -> insertDocuments(pending));
+			}
+		} catch (RuntimeException e) {
+			outboxRepo.saveAll(pending.stream()
+					.map(PendingDocument::fileKey)
+					.filter(Objects::nonNull)
+					.map(this::deleteNow)
+					.toList());
+			throw e;
+		}
+	}
+
+	private List<String> insertDocuments(List<PendingDocument> pending) {
+		List<String> errors = new ArrayList<>(pending.size());
+		List<DocumentEntity> documents = new ArrayList<>(pending.size());
+		for (var upload : pending) {
+			var document = upload.document();
+			BlobEntity blob = null;
+			String error = null;
+			if (upload.fileKey() == null) {
+				blob = blobRegistry.acquire(document.getContentHash()).orElse(null);
+				if (blob == null)
+					error = "Stored copy was deleted meanwhile, upload again: " + document.getFileName();
+			} else if (outboxRepo.cancel(OutboxAction.DELETE, upload.fileKey()) == 0) {
+				// queued anew: an upload that took too long has already lost its pending entry
+				outboxRepo.save(deleteNow(upload.fileKey()));
+				error = "Upload took too long: " + document.getFileName();
+			} else {
+				blob = blobRegistry.register(document.getContentHash(), upload.fileKey(), upload.size(),
+						upload.etag(), upload.codec());
+			}
+			errors.add(error);
+			if (blob == null)
+				continue;
+			document.setFileSize(blob.getSize());
+			document.setEtag(blob.getEtag());
+			document.setStorageKey(blob.getStorageKey());
+			document.setCodec(blob.getCodec());
+			documents.add(document);
+		}
+		documentRepo.saveAll(documents);
+		return errors;
+	}
+
+	private StorageOutboxEntity deleteNow(String fileKey) {
+		Date now = new Date();
+		return StorageOutboxEntity.builder()
+				.storageKey(fileKey)
+				.action(OutboxAction.DELETE)
+				.createdAt(now)
+				.nextAttemptAt(now)
+				.build();
+	}
+
+	private String streamToStorage(String fileKey, String contentType, InputStream body, long size) {
+		try (body) {
+			var metadata = objectStore.put(fileKey, contentType, body, size);
+			log.info("File streamed successfully to storage with key: {}", fileKey);
+			return metadata.etag();
+		} catch (IOException e) {
+			log.error("Failed to stream file due to IO exception: {}", e.getMessage(), e);
+			throw new RuntimeException("Failed to upload file", e);
+		}
+	}
+
+	private String uploadFileToS3(FileDTO dto, String fileKey, ContentCodec codec) {
 		try {
-			String folder = getFolderByFileType(dto.getFileType());
-			String fileId = UUID.randomUUID().toString();
-			String fileKey = folder +  fileId
-					+ "-" + dto.getFileName().trim();
-
-			PutObjectRequest putObjectRequest = PutObjectRequest.builder()
-					.bucket(BUCKET_NAME)
-					.key(fileKey)
-					.contentType(dto.getMultipartFile().getContentType())
-					.build();
-			
 			InputStream fileInputStream = dto.getMultipartFile().getInputStream();
 	        if (fileInputStream == null) {
 	            log.error("Failed to get InputStream for file: {}", dto.getFileName());
 	            throw new RuntimeException("InputStream for file is null");
 	        }
 
-	        s3Client.putObject(putObjectRequest, 
-	        		RequestBody.fromInputStream(fileInputStream, dto.getMultipartFile().getSize()));
-	        log.info("File uploaded successfully to S3 with key: {}", fileKey);
-			return fileId;
-	    } catch (IOException e) {
-	        log.error("Failed to upload file to S3 due to IO exception: {}", e.getMessage(), e);
-	        throw new RuntimeException("Failed to upload file to S3", e);
-	    } catch (SdkException e) {
-	        if (e instanceof AwsServiceException awsServiceException) {
-	            log.error("S3 SDK error: {} - {}", awsServiceException.awsErrorDetails().errorCode(),
-	                    awsServiceException.awsErrorDetails().errorMessage(), e);
-	        } else {
-	            log.error("Unexpected SDK exception: {}", e.getMessage(), e);
+	        try (InputStream body = encode(fileInputStream, codec)) {
+	        	var metadata = objectStore.put(fileKey, dto.getMultipartFile().getContentType(),
+	        			body, codec == null ? dto.getMultipartFile().getSize() : -1);
+	        	log.info("File uploaded successfully to storage with key: {}", fileKey);
+	        	return metadata.etag();
 	        }
-	        throw new RuntimeException("S3 SDK error", e);
-	    } catch (Exception e) {
-	        log.error("Unexpected error while uploading file to S3: {}", e.getMessage(), e);
-	        throw new RuntimeException("Unexpected error while uploading file to S3", e);
+	    } catch (IOException e) {
+	        log.error("Failed to upload file due to IO exception: {}", e.getMessage(), e);
+	        throw new RuntimeException("Failed to upload file", e);
 	    }
 	}
 	
-	private void validateFile(MultipartFile file) {
-		String fileName = file.getOriginalFilename();
-		if (fileName == null || fileName.isEmpty()) {
-			throw new IllegalArgumentException("File name is invalid");
+	/**
+	 * Text compresses several times over and is stored gzip-compressed; other types
+	 * either are compressed already (docx, pptx, media, archives) or gain too little.
+	 */
+	private ContentCodec codecFor(String extension) {
+		String mime = MIME_TYPES.get(extension.toLowerCase());
+		return mime != null && mime.startsWith("text/") ? ContentCodec.GZIP : null;
+	}
+
+	private InputStream encode(InputStream input, ContentCodec codec) {
+		return codec == ContentCodec.GZIP ? new GzipCompressingInputStream(input) : input;
+	}
+
+	private String hash(MultipartFile file) {
+		var digest = sha256();
+		try (var input = new DigestInputStream(file.getInputStream(), digest)) {
+			input.transferTo(OutputStream.nullOutputStream());
+		} catch (IOException e) {
+			log.error("Failed to read uploaded file: {}", e.getMessage(), e);
+			throw new RuntimeException("Failed to upload file", e);
+		}
+		return HexFormat.of().formatHex(digest.digest());
+	}
+
+	private static MessageDigest sha256() {
+		try {
+			return MessageDigest.getInstance("SHA-256");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
 		}
+	}
+
+	private boolean matches(List<MediaType> types, String mime) {
+		if (mime == null)
+			return false;
+		var mediaType = MediaType.parseMediaType(mime);
+		return types.stream().anyMatch(type -> type.includes(mediaType));
+	}
+
+	void validateFile(MultipartFile file) {
+		validateFileName(file.getOriginalFilename());
+		validateFileSize(file.getSize());
+	}
+
+	private void validateFileName(String fileName) {
+		validateKeyName(fileName);
 
 		String extension = getFileExtension(fileName);
         if (!FILE_EXTENSIONS.contains(extension.toLowerCase())) {
             throw new IllegalArgumentException("Unsupported file type: " + extension);
         }
+	}
+
+	/** The name ends up in the storage key, so it must be a single path segment. */
+	private void validateKeyName(String fileName) {
+		if (fileName == null || fileName.isBlank()) {
+			throw new IllegalArgumentException("File name is invalid");
+		}
+		String name = fileName.trim();
+		if (name.contains("/") || name.contains("\\") || name.equals(".") || name.equals("..")) {
+			throw new IllegalArgumentException("File name must not contain path separators: " + fileName);
+		}
+	}
 
-        if (file.getSize() > MAX_FILE_SIZE) {
-            throw new IllegalArgumentException("File size exceeds the maximum allowed size of 50MB");
+	private void validateFileSize(long size) {
+        if (size > uploadProperties.getMaxFileSize().toBytes()) {
+            throw new IllegalArgumentException("File size exceeds the maximum allowed size of "
+            		+ uploadProperties.getMaxFileSize().toMegabytes() + "MB");
         }
 	}
 
-	private String getFileExtension(String fileName) {
+	String getFileExtension(String fileName) {
 		int dotIndex = fileName.lastIndexOf('.');
 		if (dotIndex == -1 || dotIndex == fileName.length() - 1) {
 			throw new IllegalArgumentException("File does not have a valid extension");
@@ -304,6 +920,45 @@ public class DocumentServiceImpl implements DocumentService {
 		return fileName.substring(dotIndex + 1);
 	}
 	
+	private void afterCommit(Runnable action) {
+		if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+			action.run();
+			return;
+		}
+		TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+			@Override
+			public void afterCommit() {
+				action.run();
+			}
+		});
+	}
+
+	private int pageSize(int requested) {
+		if (requested <= 0)
+			return DEFAULT_PAGE_SIZE;
+		return Math.min(requested, MAX_PAGE_SIZE);
+	}
+
+	/**
+	 * Pages are queried with one extra row; its presence means there is a next page.
+	 */
+	DocumentPage toPage(List<DocumentSummary> summaries, int size) {
+		boolean hasNext = summaries.size() > size;
+		var items = hasNext ? summaries.subList(0, size) : summaries;
+		return DocumentPage.builder()
+				.items(items.stream().map(this::toDto).toList())
+				.nextCursor(hasNext ? DocumentCursor.of(items.get(size - 1)).encode() : null)
+				.build();
+	}
+
+	private DocumentDTO toDto(DocumentSummary summary) {
+		return DocumentDTO.builder()
+				.fileId(summary.fileId())
+				.fileName(summary.fileName())
+				.uploadAt(summary.uploadAt())
+				.build();
+	}
+
 	private DocumentDTO toDto(DocumentEntity entity) {
 		return DocumentDTO.builder()
 				.fileId(entity.getFileId())
@@ -312,8 +967,7 @@ public class DocumentServiceImpl implements DocumentService {
 				.build();
 	}
 	
-	private DocumentEntity toEntity(FileDTO dto) {
-		var user = getCurrentUser();
+	private DocumentEntity toEntity(FileDTO dto, UserEntity user) {
 		var document = DocumentEntity.builder()
 				.fileName(dto.getFileName())
 				.uploadAt(new Date())
@@ -323,4 +977,13 @@ public class DocumentServiceImpl implements DocumentService {
 		return document;
 	}
 //	@formatter:on
+
+	/**
+	 * A document whose body is in storage, waiting to be recorded. {@code fileKey} is
+	 * set when a new object was uploaded for it, {@code null} when the same bytes were
+	 * stored already.
+	 */
+	private record PendingDocument(DocumentEntity document, String fileKey, long size, String etag,
+			ContentCodec codec) {
+	}
 }
@@ -0,0 +1,309 @@
+package com.example.service.impl;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+
+import org.apache.pdfbox.Loader;
+import org.apache.pdfbox.io.IOUtils;
+import org.apache.pdfbox.pdmodel.common.PDRectangle;
+import org.apache.pdfbox.rendering.ImageType;
+import org.apache.pdfbox.rendering.PDFRenderer;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.example.config.StorageProperties;
+import com.example.config.ThumbnailProperties;
+import com.example.dto.OutboxAction;
+import com.example.entity.DocumentEntity;
+import com.example.entity.StorageOutboxEntity;
+import com.example.repo.DocumentRepo;
+import com.example.repo.StorageOutboxRepo;
+import com.example.storage.ObjectStore;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes the JPEG previews shown in document lists, so that a list icon does not
+ * cost a download of the original. Images are downscaled, PDFs have their first page
+ * rendered and videos give a representative frame through ffmpeg, when it is
+ * installed. Work is queued after the upload and done on its own small pool; a
+ * thumbnail that cannot be made is skipped and the document simply has none. Like
+ * document bodies, a thumbnail is queued for deletion before it is stored, and the
+ * entry is cancelled together with recording it on the document.
+ */
+@Component
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class DocumentThumbnailer {
+	public static final String THUMBNAIL_MIME = "image/jpeg";
+
+	private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png");
+	private static final Set<String> PDF_EXTENSIONS = Set.of("pdf");
+	private static final Set<String> VIDEO_EXTENSIONS = Set.of("mp4", "mkv", "avi");
+
+	ObjectStore objectStore;
+	DocumentRepo documentRepo;
+	StorageOutboxRepo outboxRepo;
+	DocumentMetadataCache metadataCache;
+	ThumbnailProperties properties;
+	StorageProperties storageProperties;
+	TransactionTemplate transactionTemplate;
+	ExecutorService executor;
+	boolean videoSupported;
+
+	public DocumentThumbnailer(ObjectStore objectStore, DocumentRepo documentRepo, StorageOutboxRepo outboxRepo,
+			DocumentMetadataCache metadataCache, ThumbnailProperties properties, StorageProperties storageProperties,
+			TransactionTemplate transactionTemplate, ExecutorService thumbnailExecutor) {
+		this.objectStore = objectStore;
+		this.documentRepo = documentRepo;
+		this.outboxRepo = outboxRepo;
+		this.metadataCache = metadataCache;
+		this.properties = properties;
+		this.storageProperties = storageProperties;
+		this.transactionTemplate = transactionTemplate;
+		this.executor = thumbnailExecutor;
+		this.videoSupported = properties.isEnabled() && isEncoderInstalled(properties.getFfmpegPath());
+	}
+
+	/**
+	 * Queues a thumbnail for a document that was just saved, to be stored under
+	 * {@code thumbnailKey}. Types without a preview are ignored.
+	 */
+	public void schedule(DocumentEntity document, String thumbnailKey) {
+		String extension = document.getFileExtension().toLowerCase(Locale.ROOT);
+		if (!properties.isEnabled() || !isSupported(extension))
+			return;
+		if (document.getFileSize() != null && document.getFileSize() > properties.getMaxSourceSize().toBytes())
+			return;
+
+		String fileId = document.getFileId();
+		String sourceKey = document.getStorageKey();
+		try {
+			executor.execute(() -> generate(fileId, extension, sourceKey, thumbnailKey));
+		} catch (RejectedExecutionException e) {
+			log.warn("Thumbnail queue is full, {} gets no thumbnail", fileId);
+		}
+	}
+
+	private boolean isSupported(String extension) {
+		return IMAGE_EXTENSIONS.contains(extension) || PDF_EXTENSIONS.contains(extension)
+				|| (videoSupported && VIDEO_EXTENSIONS.contains(extension));
+	}
+
+	private void generate(String fileId, String extension, String sourceKey, String thumbnailKey) {
+		long started = System.nanoTime();
+		try {
+			BufferedImage preview;
+			if (IMAGE_EXTENSIONS.contains(extension)) {
+				try (var content = objectStore.get(sourceKey)) {
+					preview = readImage(content.stream());
+				}
+			} else if (PDF_EXTENSIONS.contains(extension)) {
+				preview = withLocalCopy(sourceKey, this::renderFirstPage);
+			} else {
+				preview = withLocalCopy(sourceKey, this::extractFrame);
+			}
+
+			byte[] jpeg = toJpeg(scale(preview));
+			recordPendingUpload(thumbnailKey);
+			objectStore.put(thumbnailKey, THUMBNAIL_MIME, new ByteArrayInputStream(jpeg), jpeg.length);
+			if (!Boolean.TRUE.equals(transactionTemplate.execute(status -> recordThumbnail(fileId, thumbnailKey, status)))) {
+				// the document was deleted meanwhile, or the sweeper took the entry; no need to
+				// wait for the timeout
+				objectStore.delete(thumbnailKey);
+				return;
+			}
+			metadataCache.invalidateAll(List.of(fileId));
+			log.info("Thumbnail of {} stored with key {} in {} ms", fileId, thumbnailKey,
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		} catch (Exception e) {
+			log.warn("Failed to make a thumbnail of {}: {}", fileId, e.getMessage());
+		}
+	}
+
+	/**
+	 * Queues the key for deletion once the pending-upload timeout has passed, so a
+	 * thumbnail stored but never recorded, e.g. when the node stops in between, is
+	 * still collected by the sweeper.
+	 */
+	private void recordPendingUpload(String thumbnailKey) {
+		Date now = new Date();
+		var timeout = storageProperties.getOutbox().getPendingUploadTimeout();
+		outboxRepo.save(StorageOutboxEntity.builder()
+				.storageKey(thumbnailKey)
+				.action(OutboxAction.DELETE)
+				.createdAt(now)
+				.nextAttemptAt(new Date(now.getTime() + timeout.toMillis()))
+				.build());
+	}
+
+	/**
+	 * Cancels the pending entry and sets the key on the document, or neither: the
+	 * sweeper may have taken the entry, or the document may be gone.
+	 */
+	private boolean recordThumbnail(String fileId, String thumbnailKey, TransactionStatus status) {
+		if (outboxRepo.cancel(OutboxAction.DELETE, thumbnailKey) == 0)
+			return false;
+		if (documentRepo.setThumbnailKey(fileId, thumbnailKey) == 0) {
+			status.setRollbackOnly();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Decodes only every n-th pixel of images much larger than the thumbnail, which
+	 * keeps a large photo from costing hundreds of megabytes of heap.
+	 */
+	private BufferedImage readImage(InputStream input) throws IOException {
+		try (ImageInputStream stream = ImageIO.createImageInputStream(input)) {
+			var readers = ImageIO.getImageReaders(stream);
+			if (!readers.hasNext())
+				throw new IOException("Unsupported image format");
+			ImageReader reader = readers.next();
+			try {
+				reader.setInput(stream, true, true);
+				int longest = Math.max(reader.getWidth(0), reader.getHeight(0));
+				int step = Math.max(1, longest / (2 * properties.getSize()));
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceSubsampling(step, step, 0, 0);
+				return reader.read(0, param);
+			} finally {
+				reader.dispose();
+			}
+		}
+	}
+
+	private BufferedImage renderFirstPage(Path file) throws IOException {
+		try (var document = Loader.loadPDF(file.toFile(), IOUtils.createTempFileOnlyStreamCache())) {
+			if (document.getNumberOfPages() == 0)
+				throw new IOException("PDF has no pages");
+			PDRectangle page = document.getPage(0).getCropBox();
+			float scale = properties.getSize() / Math.max(page.getWidth(), page.getHeight());
+			return new PDFRenderer(document).renderImage(0, Math.min(scale * 2, 4f), ImageType.RGB);
+		}
+	}
+
+	/** ffmpeg's thumbnail filter picks a representative frame among the first ones. */
+	private BufferedImage extractFrame(Path file) throws IOException, InterruptedException {
+		Path frame = Files.createTempFile("thumbnail-", ".jpg");
+		try {
+			Process process = new ProcessBuilder(properties.getFfmpegPath(), "-v", "error", "-y", "-i",
+					file.toString(), "-vf", "thumbnail", "-frames:v", "1", frame.toString())
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.start();
+			if (!process.waitFor(properties.getFfmpegTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+				process.destroyForcibly();
+				throw new IOException("ffmpeg timed out");
+			}
+			if (process.exitValue() != 0 || Files.size(frame) == 0)
+				throw new IOException("ffmpeg exited with " + process.exitValue());
+			try (var input = Files.newInputStream(frame)) {
+				return readImage(input);
+			}
+		} finally {
+			Files.deleteIfExists(frame);
+		}
+	}
+
+	/** PDFBox and ffmpeg need random access, so the original is copied to a temporary file first. */
+	private BufferedImage withLocalCopy(String sourceKey, Renderer renderer) throws Exception {
+		Path file = Files.createTempFile("thumbnail-source-", null);
+		try {
+			try (var content = objectStore.get(sourceKey)) {
+				Files.copy(content.stream(), file, StandardCopyOption.REPLACE_EXISTING);
+			}
+			return renderer.render(file);
+		} finally {
+			Files.deleteIfExists(file);
+		}
+	}
+
+	/** Transparent areas become white, JPEG has no alpha channel. */
+	private BufferedImage scale(BufferedImage source) {
+		if (source == null)
+			throw new IllegalStateException("Nothing to render");
+		double ratio = Math.min(1.0, (double) properties.getSize() / Math.max(source.getWidth(), source.getHeight()));
+		int width = Math.max(1, (int) Math.round(source.getWidth() * ratio));
+		int height = Math.max(1, (int) Math.round(source.getHeight() * ratio));
+
+		BufferedImage thumbnail = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+		Graphics2D graphics = thumbnail.createGraphics();
+		try {
+			graphics.setColor(Color.WHITE);
+			graphics.fillRect(0, 0, width, height);
+			graphics.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+			graphics.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+			graphics.drawImage(source, 0, 0, width, height, null);
+		} finally {
+			graphics.dispose();
+		}
+		return thumbnail;
+	}
+
+	private byte[] toJpeg(BufferedImage image) throws IOException {
+		ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+		ImageWriteParam param = writer.getDefaultWriteParam();
+		param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+		param.setCompressionQuality(properties.getQuality());
+		var bytes = new ByteArrayOutputStream();
+		try (var output = ImageIO.createImageOutputStream(bytes)) {
+			writer.setOutput(output);
+			writer.write(null, new IIOImage(image, null, null), param);
+		} finally {
+			writer.dispose();
+		}
+		return bytes.toByteArray();
+	}
+
+	private static boolean isEncoderInstalled(String ffmpegPath) {
+		try {
+			Process process = new ProcessBuilder(ffmpegPath, "-version")
+					.redirectErrorStream(true)
+					.redirectOutput(ProcessBuilder.Redirect.DISCARD)
+					.start();
+			if (process.waitFor(5, TimeUnit.SECONDS) && process.exitValue() == 0)
+				return true;
+			process.destroyForcibly();
+		} catch (IOException e) {
+			// not installed
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		log.info("{} is not available, videos get no thumbnail", ffmpegPath);
+		return false;
+	}
+
+	@FunctionalInterface
+	private interface Renderer {
+		BufferedImage render(Path file) throws Exception;
+	}
+}
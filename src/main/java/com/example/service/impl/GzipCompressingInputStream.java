@@ -0,0 +1,77 @@
+package com.example.service.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterInputStream;
+
+/**
+ * Reads another stream gzip-compressed, so an upload is compressed on its way to
+ * storage without a second thread or a copy of the whole file. The output is the
+ * gzip header, the deflated bytes, then the CRC-32 and length trailer, which are
+ * only known once the source is exhausted.
+ */
+class GzipCompressingInputStream extends SequenceInputStream {
+	private static final int BUFFER_SIZE = 64 * 1024;
+	private static final byte[] HEADER = { 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff };
+
+	private final Deflater deflater;
+
+	GzipCompressingInputStream(InputStream in) {
+		this(in, new CRC32(), new Deflater(Deflater.DEFAULT_COMPRESSION, true));
+	}
+
+	private GzipCompressingInputStream(InputStream in, CRC32 crc, Deflater deflater) {
+		super(parts(in, crc, deflater));
+		this.deflater = deflater;
+	}
+
+	@Override
+	public void close() throws IOException {
+		try {
+			super.close();
+		} finally {
+			deflater.end();
+		}
+	}
+
+	private static Enumeration<InputStream> parts(InputStream in, CRC32 crc, Deflater deflater) {
+		return new Enumeration<>() {
+			private int next;
+
+			@Override
+			public boolean hasMoreElements() {
+				return next < 3;
+			}
+
+			@Override
+			public InputStream nextElement() {
+				switch (next++) {
+				case 0:
+					return new ByteArrayInputStream(HEADER);
+				case 1:
+					return new DeflaterInputStream(new CheckedInputStream(in, crc), deflater, BUFFER_SIZE);
+				case 2:
+					return new ByteArrayInputStream(trailer(crc.getValue(), deflater.getBytesRead()));
+				default:
+					throw new NoSuchElementException();
+				}
+			}
+		};
+	}
+
+	private static byte[] trailer(long crc, long size) {
+		byte[] trailer = new byte[8];
+		for (int i = 0; i < 4; i++) {
+			trailer[i] = (byte) (crc >>> (8 * i));
+			trailer[4 + i] = (byte) (size >>> (8 * i));
+		}
+		return trailer;
+	}
+}
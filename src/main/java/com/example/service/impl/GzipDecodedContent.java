@@ -0,0 +1,77 @@
+package com.example.service.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.zip.GZIPInputStream;
+
+import com.example.storage.ObjectContent;
+
+/**
+ * Decompressed view of a gzip-compressed stored object, limited to {@code length}
+ * bytes starting at {@code offset} of the original file. Ranges of a compressed
+ * object cannot be read from storage, so the object is inflated from the start and
+ * the bytes before the range are discarded.
+ */
+class GzipDecodedContent implements ObjectContent {
+	private final ObjectContent stored;
+	private final long offset;
+	private final long length;
+
+	GzipDecodedContent(ObjectContent stored, long offset, long length) {
+		this.stored = stored;
+		this.offset = offset;
+		this.length = length;
+	}
+
+	@Override
+	public long contentLength() {
+		return length;
+	}
+
+	@Override
+	public InputStream stream() {
+		try {
+			var decoded = new GZIPInputStream(stored.stream(), BUFFER_SIZE);
+			decoded.skipNBytes(offset);
+			return new Limited(decoded, length);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to decompress stored file", e);
+		}
+	}
+
+	@Override
+	public void close() throws IOException {
+		stored.close();
+	}
+
+	private static class Limited extends FilterInputStream {
+		private long remaining;
+
+		Limited(InputStream in, long remaining) {
+			super(in);
+			this.remaining = remaining;
+		}
+
+		@Override
+		public int read() throws IOException {
+			if (remaining <= 0)
+				return -1;
+			int b = super.read();
+			if (b != -1)
+				remaining--;
+			return b;
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len) throws IOException {
+			if (remaining <= 0)
+				return -1;
+			int read = super.read(b, off, (int) Math.min(len, remaining));
+			if (read > 0)
+				remaining -= read;
+			return read;
+		}
+	}
+}
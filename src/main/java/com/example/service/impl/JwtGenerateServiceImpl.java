@@ -3,18 +3,24 @@ package com.example.service.impl;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
-import java.util.function.Function;
+import java.util.concurrent.TimeUnit;
 
 import javax.crypto.SecretKey;
 
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
+import com.example.config.SecurityProperties;
 import com.example.constant.SecurityConstant;
 import com.example.service.JwtGenerateService;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+
 import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.MalformedJwtException;
 import io.jsonwebtoken.UnsupportedJwtException;
@@ -22,15 +28,30 @@ import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import io.jsonwebtoken.security.SignatureException;
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 import lombok.extern.slf4j.Slf4j;
 
 @Service
 @Slf4j
-@RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class JwtGenerateServiceImpl implements JwtGenerateService {
+	SecretKey secretKey;
+	JwtParser jwtParser;
+
+	/**
+	 * Tokens whose signature has already been verified, each evicted when the token
+	 * itself expires. Only valid tokens are cached.
+	 */
+	Cache<String, VerifiedToken> verifiedTokens;
+
+	public JwtGenerateServiceImpl(SecurityProperties securityProperties) {
+		this.secretKey = Keys.hmacShaKeyFor(Decoders.BASE64.decode(SecurityConstant.JWT_SECRET));
+		this.jwtParser = Jwts.parser().verifyWith(secretKey).build();
+		this.verifiedTokens = Caffeine.newBuilder()
+				.maximumSize(securityProperties.getTokenCacheSize())
+				.expireAfter(new TokenExpiry())
+				.build();
+	}
 
 	@Override
 	public String generateToken(String userName) {
@@ -43,21 +64,44 @@ public class JwtGenerateServiceImpl implements JwtGenerateService {
 
 	@Override
 	public String extractUsername(String token) {
-		return extractClaim(token, Claims::getSubject);
+		VerifiedToken verified = verify(token);
+		return verified == null ? null : verified.username();
 	}
 
 	@Override
 	public Boolean validateToken(String token, String username) {
-		String usernameFromToken = extractUsername(token);
-		Date dateExprire = extractClaim(token, Claims::getExpiration);
+		return username.equals(validateAndGetUsername(token));
+	}
+
+	@Override
+	public String validateAndGetUsername(String token) {
+		VerifiedToken verified = verify(token);
+		if (verified == null || !verified.expiration().after(new Date()))
+			return null;
+
+		return verified.username();
+	}
+
+	private VerifiedToken verify(String token) {
+		if (!StringUtils.hasText(token))
+			return null;
 
-		return (username.equals(usernameFromToken) && dateExprire.after(new Date()));
+		VerifiedToken verified = verifiedTokens.getIfPresent(token);
+		if (verified != null)
+			return verified;
+
+		Claims claims = parseClaims(token);
+		if (claims == null || claims.getExpiration() == null)
+			return null;
+
+		verified = new VerifiedToken(claims.getSubject(), claims.getExpiration());
+		verifiedTokens.put(token, verified);
+		return verified;
 	}
 
-	private <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
+	private Claims parseClaims(String token) {
 		try {
-			Claims claims = Jwts.parser().verifyWith(getSecretKey()).build().parseSignedClaims(token).getPayload();
-			return claimsResolver.apply(claims);
+			return jwtParser.parseSignedClaims(token).getPayload();
 		} catch (SignatureException e) {
 			log.error("Invalid JWT signature: {}", e.getMessage());
 		} catch (MalformedJwtException e) {
@@ -76,7 +120,7 @@ public class JwtGenerateServiceImpl implements JwtGenerateService {
 		return Jwts.builder().claims(generateClaims(userName)).subject(userName)
 				.issuedAt(new Date(System.currentTimeMillis()))
 				.expiration(new Date(System.currentTimeMillis() + SecurityConstant.JWT_EXPIRED))
-				.signWith(getSecretKey(), Jwts.SIG.HS256).compact();
+				.signWith(secretKey, Jwts.SIG.HS256).compact();
 	}
 
 	private Map<String, Object> generateClaims(String username) {
@@ -89,8 +133,25 @@ public class JwtGenerateServiceImpl implements JwtGenerateService {
 		return claims;
 	}
 
-	private SecretKey getSecretKey() {
-		byte[] keyBytes = Decoders.BASE64.decode(SecurityConstant.JWT_SECRET);
-		return Keys.hmacShaKeyFor(keyBytes);
+	private record VerifiedToken(String username, Date expiration) {
+	}
+
+	private static class TokenExpiry implements Expiry<String, VerifiedToken> {
+		@Override
+		public long expireAfterCreate(String token, VerifiedToken verified, long currentTime) {
+			long remainingMillis = verified.expiration().getTime() - System.currentTimeMillis();
+			return TimeUnit.MILLISECONDS.toNanos(Math.max(0, remainingMillis));
+		}
+
+		@Override
+		public long expireAfterUpdate(String token, VerifiedToken verified, long currentTime,
+				long currentDuration) {
+			return expireAfterCreate(token, verified, currentTime);
+		}
+
+		@Override
+		public long expireAfterRead(String token, VerifiedToken verified, long currentTime, long currentDuration) {
+			return currentDuration;
+		}
 	}
 }
@@ -0,0 +1,59 @@
+package com.example.service.impl;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.springframework.web.multipart.MaxUploadSizeExceededException;
+
+/**
+ * Counts the bytes read from an upload and fails as soon as they pass the limit,
+ * so an oversized body is rejected mid-stream instead of after it was stored.
+ */
+class SizeLimitedInputStream extends FilterInputStream {
+	private final long maxBytes;
+	private long count;
+
+	SizeLimitedInputStream(InputStream in, long maxBytes) {
+		super(in);
+		this.maxBytes = maxBytes;
+	}
+
+	long getCount() {
+		return count;
+	}
+
+	@Override
+	public int read() throws IOException {
+		int b = super.read();
+		if (b != -1)
+			advance(1);
+		return b;
+	}
+
+	@Override
+	public int read(byte[] b, int off, int len) throws IOException {
+		int read = super.read(b, off, len);
+		if (read > 0)
+			advance(read);
+		return read;
+	}
+
+	@Override
+	public long skip(long n) throws IOException {
+		long skipped = super.skip(n);
+		advance(skipped);
+		return skipped;
+	}
+
+	@Override
+	public boolean markSupported() {
+		return false;
+	}
+
+	private void advance(long bytes) {
+		count += bytes;
+		if (count > maxBytes)
+			throw new MaxUploadSizeExceededException(maxBytes);
+	}
+}
@@ -0,0 +1,96 @@
+package com.example.service.impl;
+
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.example.config.StorageProperties;
+import com.example.dto.OutboxAction;
+import com.example.entity.StorageOutboxEntity;
+import com.example.repo.BlobRepo;
+import com.example.repo.DocumentRepo;
+import com.example.repo.StorageOutboxRepo;
+import com.example.storage.ObjectStore;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Carries out storage work queued in the {@code storage_outbox} table. Deleted
+ * documents are removed from the object store in batches, outside any request or
+ * database transaction; keys that fail are retried with exponential back-off.
+ *
+ * Uploads queue their key before sending the body and cancel it once the document
+ * is recorded, so the sweeper also collects objects of uploads that failed or were
+ * cut off half way. Each due entry is claimed on its own before its object is
+ * touched, so an upload that is recorded at the same moment either cancels the entry
+ * first or fails to, never both. A key that has since become the stored copy of some
+ * content is left alone.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class StorageOutboxSweeper {
+	StorageOutboxRepo outboxRepo;
+	DocumentRepo documentRepo;
+	BlobRepo blobRepo;
+	ObjectStore objectStore;
+	StorageProperties storageProperties;
+	MeterRegistry meterRegistry;
+
+	@Scheduled(fixedDelayString = "${app.storage.outbox.interval:PT5S}")
+	public void sweep() {
+		var outbox = storageProperties.getOutbox();
+		Date now = new Date();
+		Date leaseEnd = new Date(now.getTime() + outbox.getClaimTimeout().toMillis());
+		List<StorageOutboxEntity> entries = outboxRepo.findAllByActionAndNextAttemptAtBeforeOrderByIdAsc(
+				OutboxAction.DELETE, now, Limit.of(outbox.getBatchSize()))
+				.stream()
+				.filter(entry -> outboxRepo.claim(entry.getId(), now, leaseEnd) == 1)
+				.toList();
+		if (entries.isEmpty())
+			return;
+		entries.forEach(entry -> entry.setClaimedAt(now));
+
+		// checked under the claim, after which no upload can register one of these keys
+		Set<String> referencedKeys = new HashSet<>(
+				blobRepo.findStorageKeysIn(entries.stream().map(StorageOutboxEntity::getStorageKey).toList()));
+		Set<String> failedKeys = new HashSet<>(meterRegistry.timer("storage.outbox.delete").record(
+				() -> objectStore.deleteAll(entries.stream()
+						.map(StorageOutboxEntity::getStorageKey)
+						.filter(key -> !referencedKeys.contains(key))
+						.toList())));
+
+		var done = entries.stream().filter(e -> !failedKeys.contains(e.getStorageKey())).toList();
+		var failed = entries.stream().filter(e -> failedKeys.contains(e.getStorageKey())).toList();
+
+		var fileIds = done.stream().map(StorageOutboxEntity::getFileId).filter(id -> id != null).toList();
+		if (!fileIds.isEmpty())
+			documentRepo.purgeDeleted(fileIds);
+		outboxRepo.deleteAllInBatch(done);
+
+		for (var entry : failed) {
+			entry.setAttempts(entry.getAttempts() + 1);
+			entry.setNextAttemptAt(new Date(System.currentTimeMillis() + backoffMillis(entry.getAttempts())));
+		}
+		outboxRepo.saveAll(failed);
+		meterRegistry.counter("storage.outbox.objects", "outcome", "deleted").increment(done.size());
+		meterRegistry.counter("storage.outbox.objects", "outcome", "retried").increment(failed.size());
+
+		log.info("Deleted {} object(s) from storage, {} will be retried", done.size(), failed.size());
+	}
+
+	private long backoffMillis(int attempts) {
+		long maxBackoff = storageProperties.getOutbox().getMaxBackoff().toMillis();
+		return Math.min(maxBackoff, 1000L << Math.min(attempts, 20));
+	}
+}
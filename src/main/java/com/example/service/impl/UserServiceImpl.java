@@ -1,6 +1,6 @@
 package com.example.service.impl;
 
-import java.util.ArrayList;
+import java.util.List;
 
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
@@ -9,27 +9,69 @@ import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+
 import lombok.AccessLevel;
-import lombok.RequiredArgsConstructor;
 import lombok.experimental.FieldDefaults;
 
+import com.example.config.CachingProperties;
+import com.example.entity.UserEntity;
 import com.example.repo.UserRepo;
 import com.example.service.UserService;
 
 @Service
-@RequiredArgsConstructor
 @FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
 public class UserServiceImpl implements UserService {
 	UserRepo userRepo;
 
+	/**
+	 * Immutable snapshots of users by username. A fresh {@link User} is built from the
+	 * snapshot on every call because Spring Security erases the password of the
+	 * principal it authenticates.
+	 */
+	Cache<String, CachedUser> users;
+
+	public UserServiceImpl(UserRepo userRepo, CachingProperties cachingProperties) {
+		this.userRepo = userRepo;
+		this.users = Caffeine.newBuilder()
+				.maximumSize(cachingProperties.getUser().getMaxSize())
+				.expireAfterWrite(cachingProperties.getUser().getTtl())
+				.recordStats()
+				.build();
+	}
+
 	@Override
 	public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
-		var user = userRepo.findByUsername(username)
-				.orElseThrow(() -> new UsernameNotFoundException("Username does not exist!!!"));
+		var user = getCachedUser(username);
 
-		var authorities = new ArrayList<GrantedAuthority>();
-		authorities.add(new SimpleGrantedAuthority(user.getRole().toString()));
-		return new User(username, user.getPassword(), authorities);
+		List<GrantedAuthority> authorities = List.of(new SimpleGrantedAuthority(user.role()));
+		return new User(username, user.password(), authorities);
 	}
 
+	@Override
+	public UserEntity getReference(String username) {
+		return userRepo.getReferenceById(getCachedUser(username).id());
+	}
+
+	@Override
+	public void evictAll() {
+		users.invalidateAll();
+	}
+
+	public CacheStats getCacheStats() {
+		return users.stats();
+	}
+
+	private CachedUser getCachedUser(String username) {
+		return users.get(username, key -> {
+			var user = userRepo.findByUsername(key)
+					.orElseThrow(() -> new UsernameNotFoundException("Username does not exist!!!"));
+			return new CachedUser(user.getId(), user.getPassword(), user.getRole().toString());
+		});
+	}
+
+	private record CachedUser(Integer id, String password, String role) {
+	}
 }
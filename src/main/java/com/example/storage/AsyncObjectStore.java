@@ -0,0 +1,24 @@
+package com.example.storage;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Non-blocking counterpart of {@link ObjectStore} for the transfers that should not
+ * hold a thread while bytes are in flight. Failures complete the futures
+ * exceptionally instead of being thrown.
+ */
+public interface AsyncObjectStore {
+	/**
+	 * Opens the body, or bytes {@code start} to {@code end} (inclusive) when
+	 * {@code start} is not null. The future completes once the response headers are
+	 * in; the body is then delivered through {@link ObjectStream#body()}.
+	 */
+	CompletableFuture<ObjectStream> getAsync(String key, Long start, Long end);
+
+	/**
+	 * Stores the body read from {@code input}; {@code size} may be negative when the
+	 * length is not known up front.
+	 */
+	CompletableFuture<ObjectMetadata> putAsync(String key, String contentType, InputStream input, long size);
+}
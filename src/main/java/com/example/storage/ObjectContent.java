@@ -0,0 +1,56 @@
+package com.example.storage;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * An open object body. Callers either read {@link #stream()} or hand the body to
+ * {@link #transferTo(OutputStream)}, which stores may implement without copying
+ * through the heap.
+ */
+public interface ObjectContent extends Closeable {
+	int BUFFER_SIZE = 64 * 1024;
+
+	long contentLength();
+
+	InputStream stream();
+
+	/**
+	 * Writes the whole body to {@code out} and closes this content.
+	 */
+	default long transferTo(OutputStream out) throws IOException {
+		try (this) {
+			InputStream data = stream();
+			byte[] buffer = new byte[BUFFER_SIZE];
+			long total = 0;
+			int read;
+			while ((read = data.read(buffer)) != -1) {
+				out.write(buffer, 0, read);
+				total += read;
+			}
+			out.flush();
+			return total;
+		}
+	}
+
+	static ObjectContent of(InputStream data, long contentLength) {
+		return new ObjectContent() {
+			@Override
+			public long contentLength() {
+				return contentLength;
+			}
+
+			@Override
+			public InputStream stream() {
+				return data;
+			}
+
+			@Override
+			public void close() throws IOException {
+				data.close();
+			}
+		};
+	}
+}
@@ -0,0 +1,6 @@
+package com.example.storage;
+
+import java.time.Instant;
+
+public record ObjectMetadata(String key, long size, String etag, Instant lastModified) {
+}
@@ -0,0 +1,15 @@
+package com.example.storage;
+
+/**
+ * The object store has nothing under the requested key, e.g. because the document's
+ * body was deleted or never arrived.
+ */
+public class ObjectNotFoundException extends RuntimeException {
+	public ObjectNotFoundException(String key) {
+		super("File not found: " + key);
+	}
+
+	public ObjectNotFoundException(String key, Throwable cause) {
+		super("File not found: " + key, cause);
+	}
+}
@@ -0,0 +1,21 @@
+package com.example.storage;
+
+import java.time.Duration;
+
+/**
+ * Issues time-limited URLs that let clients read or write an object directly,
+ * without the body passing through the application. Only stores reachable by
+ * clients provide one.
+ */
+public interface ObjectPresigner {
+	/**
+	 * @param contentType        returned as the response Content-Type, overriding the
+	 *                           one stored with the object
+	 * @param contentDisposition returned as the response Content-Disposition when not
+	 *                           {@code null}
+	 */
+	PresignedRequest presignGet(String key, Duration ttl, String contentType, String contentDisposition);
+
+	/** The upload must carry exactly {@code size} bytes of {@code contentType}. */
+	PresignedRequest presignPut(String key, Duration ttl, String contentType, long size);
+}
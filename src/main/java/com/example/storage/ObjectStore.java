@@ -0,0 +1,37 @@
+package com.example.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Blob storage used for document bodies. Keys are slash separated paths such as
+ * {@code public/<fileId>-<fileName>}.
+ */
+public interface ObjectStore {
+	/**
+	 * Stores the body read from {@code input}. {@code size} may be negative when the
+	 * length is not known up front; the store then reads the stream to its end.
+	 */
+	ObjectMetadata put(String key, String contentType, InputStream input, long size) throws IOException;
+
+	ObjectContent get(String key);
+
+	/** Returns bytes {@code start} to {@code end}, both inclusive. */
+	ObjectContent getRange(String key, long start, long end);
+
+	Optional<ObjectMetadata> head(String key);
+
+	void delete(String key);
+
+	/**
+	 * Deletes many objects at once. Missing keys count as deleted.
+	 *
+	 * @return the keys that could not be deleted and should be retried
+	 */
+	List<String> deleteAll(Collection<String> keys);
+
+	List<String> list(String prefix);
+}
@@ -0,0 +1,12 @@
+package com.example.storage;
+
+import java.nio.ByteBuffer;
+
+import org.reactivestreams.Publisher;
+
+/**
+ * An object body delivered as a stream of buffers, read only as fast as the
+ * subscriber requests them.
+ */
+public record ObjectStream(long contentLength, Publisher<ByteBuffer> body) {
+}
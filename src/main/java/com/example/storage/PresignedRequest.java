@@ -0,0 +1,12 @@
+package com.example.storage;
+
+import java.net.URI;
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * A request clients can send straight to the object store until {@code expiresAt},
+ * together with the headers that were signed and must be sent unchanged.
+ */
+public record PresignedRequest(URI url, Map<String, String> headers, Instant expiresAt) {
+}
@@ -0,0 +1,11 @@
+package com.example.storage;
+
+/**
+ * The object store failed to answer a request, e.g. an S3 error or timeout. The
+ * details are logged where it happened and kept as the cause, not shown to clients.
+ */
+public class StorageException extends RuntimeException {
+	public StorageException(String message, Throwable cause) {
+		super(message, cause);
+	}
+}
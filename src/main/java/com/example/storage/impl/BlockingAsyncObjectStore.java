@@ -0,0 +1,59 @@
+package com.example.storage.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+
+import com.example.storage.AsyncObjectStore;
+import com.example.storage.ObjectMetadata;
+import com.example.storage.ObjectStore;
+import com.example.storage.ObjectStream;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Runs a blocking {@link ObjectStore} on executors so the asynchronous endpoints
+ * also work with backends that have no non-blocking client, such as the local
+ * filesystem. Downloads are read a chunk per task on {@code downloadExecutor};
+ * uploads hold an {@code uploadExecutor} thread for the whole body. Work an executor
+ * refuses fails the returned future.
+ */
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class BlockingAsyncObjectStore implements AsyncObjectStore {
+	ObjectStore delegate;
+	ExecutorService downloadExecutor;
+	ExecutorService uploadExecutor;
+
+	@Override
+	public CompletableFuture<ObjectStream> getAsync(String key, Long start, Long end) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				var content = start == null ? delegate.get(key) : delegate.getRange(key, start, end);
+				return new ObjectStream(content.contentLength(), new InputStreamPublisher(content, downloadExecutor));
+			}, downloadExecutor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+
+	@Override
+	public CompletableFuture<ObjectMetadata> putAsync(String key, String contentType, InputStream input, long size) {
+		try {
+			return CompletableFuture.supplyAsync(() -> {
+				try {
+					return delegate.put(key, contentType, input, size);
+				} catch (IOException e) {
+					throw new UncheckedIOException("Failed to upload file " + key, e);
+				}
+			}, uploadExecutor);
+		} catch (RejectedExecutionException e) {
+			return CompletableFuture.failedFuture(e);
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package com.example.storage.impl;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.example.storage.ObjectContent;
+import com.example.storage.ObjectMetadata;
+import com.example.storage.ObjectNotFoundException;
+import com.example.storage.ObjectStore;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+
+/**
+ * Keeps objects as byte arrays on the heap, for benchmarks and throwaway runs where
+ * neither S3 nor the disk should be part of what is measured. Bodies are read as
+ * plain streams, copied through a buffer like S3 responses are. Nothing survives a
+ * restart.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class InMemoryObjectStore implements ObjectStore {
+	ConcurrentMap<String, StoredObject> objects = new ConcurrentHashMap<>();
+
+	@Override
+	public ObjectMetadata put(String key, String contentType, InputStream input, long size) throws IOException {
+		byte[] data = size < 0 ? input.readAllBytes() : input.readNBytes((int) size);
+		var object = new StoredObject(data, Instant.now());
+		objects.put(key, object);
+		return object.toMetadata(key);
+	}
+
+	@Override
+	public ObjectContent get(String key) {
+		byte[] data = find(key).data();
+		return ObjectContent.of(new ByteArrayInputStream(data), data.length);
+	}
+
+	@Override
+	public ObjectContent getRange(String key, long start, long end) {
+		byte[] data = find(key).data();
+		int length = (int) (Math.min(end, data.length - 1) - start + 1);
+		return ObjectContent.of(new ByteArrayInputStream(data, (int) start, length), length);
+	}
+
+	@Override
+	public Optional<ObjectMetadata> head(String key) {
+		return Optional.ofNullable(objects.get(key)).map(object -> object.toMetadata(key));
+	}
+
+	@Override
+	public void delete(String key) {
+		objects.remove(key);
+	}
+
+	@Override
+	public List<String> deleteAll(Collection<String> keys) {
+		keys.forEach(objects::remove);
+		return List.of();
+	}
+
+	@Override
+	public List<String> list(String prefix) {
+		return objects.keySet().stream().filter(key -> key.startsWith(prefix)).sorted().toList();
+	}
+
+	private StoredObject find(String key) {
+		var object = objects.get(key);
+		if (object == null)
+			throw new ObjectNotFoundException(key);
+		return object;
+	}
+
+	private record StoredObject(byte[] data, Instant lastModified) {
+		/** Like local files, derived from modification time and size rather than a content hash. */
+		ObjectMetadata toMetadata(String key) {
+			String etag = "\"" + Long.toHexString(lastModified.toEpochMilli()) + "-" + Integer.toHexString(data.length)
+					+ "\"";
+			return new ObjectMetadata(key, data.length, etag, lastModified);
+		}
+	}
+}
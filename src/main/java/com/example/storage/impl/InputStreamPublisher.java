@@ -0,0 +1,136 @@
+package com.example.storage.impl;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import com.example.storage.ObjectContent;
+
+/**
+ * Publishes a blocking stream for a single subscriber, reading a chunk on
+ * {@code executor} for each buffer requested. The source is closed once it is
+ * exhausted, fails, the executor refuses a read or the subscription is cancelled.
+ */
+class InputStreamPublisher implements Publisher<ByteBuffer> {
+	private final ObjectContent content;
+	private final Executor executor;
+	private final AtomicBoolean subscribed = new AtomicBoolean();
+
+	InputStreamPublisher(ObjectContent content, Executor executor) {
+		this.content = content;
+		this.executor = executor;
+	}
+
+	@Override
+	public void subscribe(Subscriber<? super ByteBuffer> subscriber) {
+		if (!subscribed.compareAndSet(false, true)) {
+			subscriber.onSubscribe(new Subscription() {
+				@Override
+				public void request(long n) {
+				}
+
+				@Override
+				public void cancel() {
+				}
+			});
+			subscriber.onError(new IllegalStateException("Only one subscriber is supported"));
+			return;
+		}
+		subscriber.onSubscribe(new ReadingSubscription(subscriber));
+	}
+
+	private class ReadingSubscription implements Subscription {
+		private final Subscriber<? super ByteBuffer> subscriber;
+		private final AtomicLong demand = new AtomicLong();
+		private final AtomicInteger pendingRuns = new AtomicInteger();
+		private volatile boolean done;
+		private InputStream stream;
+
+		ReadingSubscription(Subscriber<? super ByteBuffer> subscriber) {
+			this.subscriber = subscriber;
+		}
+
+		@Override
+		public void request(long n) {
+			if (done)
+				return;
+			if (n <= 0) {
+				finish(new IllegalArgumentException("Requested " + n + " buffers"));
+				return;
+			}
+			demand.getAndAccumulate(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+			if (pendingRuns.getAndIncrement() == 0) {
+				try {
+					executor.execute(this::drain);
+				} catch (RejectedExecutionException e) {
+					finish(e);
+				}
+			}
+		}
+
+		@Override
+		public void cancel() {
+			done = true;
+			closeQuietly(content);
+		}
+
+		/**
+		 * Only one drain runs at a time; requests arriving meanwhile are picked up by
+		 * the running one before it exits.
+		 */
+		private void drain() {
+			if (stream == null)
+				stream = content.stream();
+			byte[] buffer = new byte[ObjectContent.BUFFER_SIZE];
+			do {
+				while (!done && demand.get() > 0) {
+					int read;
+					try {
+						read = stream.read(buffer);
+					} catch (IOException | RuntimeException e) {
+						finish(e);
+						return;
+					}
+					if (read == -1) {
+						finish(null);
+						return;
+					}
+					demand.decrementAndGet();
+					// the subscriber may hold on to the buffer, so each chunk gets a new array
+					subscriber.onNext(ByteBuffer.wrap(buffer, 0, read));
+					buffer = new byte[ObjectContent.BUFFER_SIZE];
+				}
+			} while (pendingRuns.decrementAndGet() > 0);
+		}
+
+		private void finish(Throwable error) {
+			if (done)
+				return;
+			done = true;
+			closeQuietly(content);
+			if (error == null) {
+				subscriber.onComplete();
+			} else {
+				subscriber.onError(error);
+			}
+		}
+	}
+
+	private static void closeQuietly(Closeable closeable) {
+		try {
+			closeable.close();
+		} catch (IOException e) {
+			// nothing left to read from it
+		}
+	}
+}
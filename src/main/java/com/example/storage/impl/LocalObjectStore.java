@@ -0,0 +1,259 @@
+package com.example.storage.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import com.example.storage.ObjectContent;
+import com.example.storage.ObjectMetadata;
+import com.example.storage.ObjectNotFoundException;
+import com.example.storage.ObjectStore;
+
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Stores objects as files under a root directory, for on-prem nodes, load tests and
+ * offline runs. Uploads are written through a {@link FileChannel} into a temporary
+ * file that is atomically moved into place; downloads are served with
+ * {@link FileChannel#transferTo} or read through a memory-mapped buffer.
+ */
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class LocalObjectStore implements ObjectStore {
+	private static final long TRANSFER_CHUNK = 8 * 1024 * 1024;
+
+	Path root;
+
+	public LocalObjectStore(Path root) {
+		this.root = root.toAbsolutePath().normalize();
+		try {
+			Files.createDirectories(this.root);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to create storage directory " + this.root, e);
+		}
+	}
+
+	@Override
+	public ObjectMetadata put(String key, String contentType, InputStream input, long size) throws IOException {
+		Path target = resolve(key);
+		Files.createDirectories(target.getParent());
+		Path temp = Files.createTempFile(target.getParent(), ".upload-", ".tmp");
+
+		try {
+			ReadableByteChannel source = Channels.newChannel(input);
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE,
+					StandardOpenOption.TRUNCATE_EXISTING)) {
+				long position = 0;
+				long transferred;
+				while ((size < 0 || position < size)
+						&& (transferred = channel.transferFrom(source, position, chunk(size, position))) > 0) {
+					position += transferred;
+				}
+				if (size >= 0 && position < size)
+					throw new IOException("Body of " + key + " ended after " + position + " of " + size + " bytes");
+				channel.force(false);
+			}
+			Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} catch (IOException | RuntimeException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+
+		return toMetadata(key, target);
+	}
+
+	@Override
+	public ObjectContent get(String key) {
+		try {
+			Path file = resolve(key);
+			return new FileContent(FileChannel.open(file, StandardOpenOption.READ), 0, Files.size(file));
+		} catch (NoSuchFileException e) {
+			throw new ObjectNotFoundException(key, e);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read file " + key, e);
+		}
+	}
+
+	@Override
+	public ObjectContent getRange(String key, long start, long end) {
+		try {
+			Path file = resolve(key);
+			long last = Math.min(end, Files.size(file) - 1);
+			return new FileContent(FileChannel.open(file, StandardOpenOption.READ), start, last - start + 1);
+		} catch (NoSuchFileException e) {
+			throw new ObjectNotFoundException(key, e);
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read file " + key, e);
+		}
+	}
+
+	@Override
+	public Optional<ObjectMetadata> head(String key) {
+		Path file = resolve(key);
+		if (!Files.isRegularFile(file)) {
+			log.warn("File not found in local storage with key: {}", key);
+			return Optional.empty();
+		}
+		try {
+			return Optional.of(toMetadata(key, file));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to read metadata of " + key, e);
+		}
+	}
+
+	@Override
+	public void delete(String key) {
+		try {
+			Files.deleteIfExists(resolve(key));
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to delete file " + key, e);
+		}
+	}
+
+	@Override
+	public List<String> deleteAll(Collection<String> keys) {
+		List<String> failed = new ArrayList<>();
+		for (String key : keys) {
+			try {
+				Files.deleteIfExists(resolve(key));
+			} catch (IOException | IllegalArgumentException e) {
+				log.error("Failed to delete file with key: {}", key, e);
+				failed.add(key);
+			}
+		}
+		return failed;
+	}
+
+	@Override
+	public List<String> list(String prefix) {
+		try (Stream<Path> files = Files.walk(root)) {
+			return files.filter(Files::isRegularFile)
+					.map(file -> root.relativize(file).toString().replace(file.getFileSystem().getSeparator(), "/"))
+					.filter(key -> key.startsWith(prefix))
+					.filter(key -> !key.substring(key.lastIndexOf('/') + 1).startsWith(".upload-"))
+					.sorted()
+					.toList();
+		} catch (IOException e) {
+			throw new UncheckedIOException("Failed to list files under " + prefix, e);
+		}
+	}
+
+	/**
+	 * Keys are plain relative paths; one with {@code .} or {@code ..} segments is
+	 * refused even when it would stay under the root, so no key can alias another.
+	 */
+	private Path resolve(String key) {
+		Path unresolved = root.resolve(key);
+		Path file = unresolved.normalize();
+		if (!file.equals(unresolved) || !file.startsWith(root) || file.equals(root))
+			throw new IllegalArgumentException("Invalid object key: " + key);
+		return file;
+	}
+
+	private long chunk(long size, long position) {
+		return size < 0 ? TRANSFER_CHUNK : Math.min(TRANSFER_CHUNK, size - position);
+	}
+
+	/**
+	 * Local files have no content hash, so the ETag is derived from modification time
+	 * and size, which change whenever the object is rewritten.
+	 */
+	private ObjectMetadata toMetadata(String key, Path file) throws IOException {
+		long size = Files.size(file);
+		var lastModified = Files.getLastModifiedTime(file).toInstant();
+		String etag = "\"" + Long.toHexString(lastModified.toEpochMilli()) + "-" + Long.toHexString(size) + "\"";
+		return new ObjectMetadata(key, size, etag, lastModified);
+	}
+
+	@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+	private static class FileContent implements ObjectContent {
+		FileChannel channel;
+		long position;
+		long count;
+
+		FileContent(FileChannel channel, long position, long count) {
+			this.channel = channel;
+			this.position = position;
+			this.count = count;
+		}
+
+		@Override
+		public long contentLength() {
+			return count;
+		}
+
+		@Override
+		public InputStream stream() {
+			try {
+				MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, position, count);
+				return new ByteBufferInputStream(buffer);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+
+		@Override
+		public long transferTo(OutputStream out) throws IOException {
+			try (this) {
+				WritableByteChannel target = Channels.newChannel(out);
+				long transferred = 0;
+				while (transferred < count) {
+					transferred += channel.transferTo(position + transferred, count - transferred, target);
+				}
+				out.flush();
+				return transferred;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			channel.close();
+		}
+	}
+
+	private static class ByteBufferInputStream extends InputStream {
+		private final ByteBuffer buffer;
+
+		ByteBufferInputStream(ByteBuffer buffer) {
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read() {
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(byte[] bytes, int offset, int length) {
+			if (!buffer.hasRemaining())
+				return -1;
+			int read = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, read);
+			return read;
+		}
+
+		@Override
+		public int available() {
+			return buffer.remaining();
+		}
+	}
+}
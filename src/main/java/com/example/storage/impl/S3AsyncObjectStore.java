@@ -0,0 +1,89 @@
+package com.example.storage.impl;
+
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+
+import com.example.storage.AsyncObjectStore;
+import com.example.storage.ObjectMetadata;
+import com.example.storage.ObjectNotFoundException;
+import com.example.storage.ObjectStream;
+import com.example.storage.StorageException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.async.AsyncRequestBody;
+import software.amazon.awssdk.core.async.AsyncResponseTransformer;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3AsyncClient;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+
+/**
+ * {@link AsyncObjectStore} on {@link S3AsyncClient}. Downloads are handed over as
+ * the SDK's own publisher, so no thread waits on S3 while the body is relayed;
+ * uploads are read from the source stream on {@code uploadExecutor}, which they hold
+ * for the whole body.
+ */
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class S3AsyncObjectStore implements AsyncObjectStore {
+	S3AsyncClient s3AsyncClient;
+	ExecutorService uploadExecutor;
+	String bucket;
+	MeterRegistry meterRegistry;
+
+//	@formatter:off
+	@Override
+	public CompletableFuture<ObjectStream> getAsync(String key, Long start, Long end) {
+		GetObjectRequest.Builder getObjectRequest = GetObjectRequest.builder()
+				.bucket(bucket)
+				.key(key);
+		if (start != null)
+			getObjectRequest.range("bytes=" + start + "-" + end);
+
+		return s3AsyncClient.getObject(getObjectRequest.build(), AsyncResponseTransformer.toPublisher())
+				.thenApply(publisher -> new ObjectStream(publisher.response().contentLength(), publisher))
+				.exceptionallyCompose(e -> CompletableFuture.failedFuture(translate(e, key, "get", "fetching file from S3")));
+	}
+
+	@Override
+	public CompletableFuture<ObjectMetadata> putAsync(String key, String contentType, InputStream input, long size) {
+		PutObjectRequest.Builder putObjectRequest = PutObjectRequest.builder()
+				.bucket(bucket)
+				.key(key)
+				.contentType(contentType);
+		if (size >= 0)
+			putObjectRequest.contentLength(size);
+
+		Long contentLength = size < 0 ? null : size;
+		return s3AsyncClient.putObject(putObjectRequest.build(), AsyncRequestBody.fromInputStream(input, contentLength, uploadExecutor))
+				.thenApply(response -> new ObjectMetadata(key, size, response.eTag(), null))
+				.exceptionallyCompose(e -> CompletableFuture.failedFuture(translate(e, key, "put", "uploading file to S3")));
+	}
+
+	private RuntimeException translate(Throwable throwable, String key, String operation, String action) {
+		Throwable e = throwable instanceof CompletionException ? throwable.getCause() : throwable;
+		if (!(e instanceof SdkException sdkException))
+			return e instanceof RuntimeException runtimeException ? runtimeException : new CompletionException(e);
+
+	    S3Errors.count(meterRegistry, operation, sdkException);
+	    if (e instanceof NoSuchKeyException)
+	        return new ObjectNotFoundException(key, e);
+	    if (e instanceof AwsServiceException awsServiceException) {
+	        log.error("S3 SDK error while {}: {} - {}", action, awsServiceException.awsErrorDetails().errorCode(),
+	                awsServiceException.awsErrorDetails().errorMessage(), e);
+	    } else {
+	        log.error("Unexpected SDK exception while {}: {}", action, e.getMessage(), e);
+	    }
+	    return new StorageException("S3 SDK error", e);
+	}
+//	@formatter:on
+}
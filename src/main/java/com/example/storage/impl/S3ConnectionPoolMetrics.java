@@ -0,0 +1,71 @@
+package com.example.storage.impl;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import software.amazon.awssdk.http.HttpMetric;
+import software.amazon.awssdk.metrics.MetricCollection;
+import software.amazon.awssdk.metrics.MetricPublisher;
+
+/**
+ * Keeps the connection pool state reported by an S3 client's HTTP layer. The SDK
+ * attaches a snapshot of the pool to every request attempt: the gauges hold the most
+ * recent one, and the time each attempt waited for a connection is recorded in the
+ * {@code storage.s3.connections.acquire} timer, whose max covers only the recent
+ * past. A growing pending count or acquire time shows the pool is too small for the
+ * traffic.
+ */
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class S3ConnectionPoolMetrics implements MetricPublisher {
+	AtomicInteger maxConnections = new AtomicInteger();
+	AtomicInteger leased = new AtomicInteger();
+	AtomicInteger available = new AtomicInteger();
+	AtomicInteger pending = new AtomicInteger();
+
+	Timer acquireTimer;
+
+	public S3ConnectionPoolMetrics(MeterRegistry registry, String client) {
+		this.acquireTimer = Timer.builder("storage.s3.connections.acquire")
+				.description("Time request attempts waited for a pooled connection")
+				.tag("client", client)
+				.register(registry);
+	}
+
+	@Override
+	public void publish(MetricCollection metrics) {
+		metrics.metricValues(HttpMetric.MAX_CONCURRENCY).forEach(maxConnections::set);
+		metrics.metricValues(HttpMetric.LEASED_CONCURRENCY).forEach(leased::set);
+		metrics.metricValues(HttpMetric.AVAILABLE_CONCURRENCY).forEach(available::set);
+		metrics.metricValues(HttpMetric.PENDING_CONCURRENCY_ACQUIRES).forEach(pending::set);
+		for (Duration duration : metrics.metricValues(HttpMetric.CONCURRENCY_ACQUIRE_DURATION)) {
+			acquireTimer.record(duration);
+		}
+		// pool figures are reported on the HTTP child of every attempt
+		metrics.children().forEach(this::publish);
+	}
+
+	@Override
+	public void close() {
+	}
+
+	public int getMaxConnections() {
+		return maxConnections.get();
+	}
+
+	public int getLeased() {
+		return leased.get();
+	}
+
+	public int getAvailable() {
+		return available.get();
+	}
+
+	/** Requests waiting for a connection when the last attempt started. */
+	public int getPending() {
+		return pending.get();
+	}
+}
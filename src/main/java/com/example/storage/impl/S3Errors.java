@@ -0,0 +1,32 @@
+package com.example.storage.impl;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+
+/**
+ * Counts failed S3 calls as {@code storage.s3.errors}, by operation and by the
+ * error code S3 returned; failures that never got an answer from S3, such as
+ * timeouts, are counted under the SDK exception's name.
+ */
+final class S3Errors {
+	private S3Errors() {
+	}
+
+	static void count(MeterRegistry registry, String operation, SdkException e) {
+		String code = e instanceof AwsServiceException awsServiceException
+				&& awsServiceException.awsErrorDetails() != null
+						? awsServiceException.awsErrorDetails().errorCode()
+						: e.getClass().getSimpleName();
+		count(registry, operation, code);
+	}
+
+	static void count(MeterRegistry registry, String operation, String code) {
+		Counter.builder("storage.s3.errors")
+				.tag("operation", operation)
+				.tag("code", code == null ? "unknown" : code)
+				.register(registry)
+				.increment();
+	}
+}
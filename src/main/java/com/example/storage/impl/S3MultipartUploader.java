@@ -0,0 +1,256 @@
+package com.example.storage.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.example.config.UploadProperties;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AccessLevel;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompletedMultipartUpload;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+
+/**
+ * Sends objects to S3, switching to the multipart upload API for large or
+ * unknown-length bodies. Parts are read sequentially from the source stream and
+ * uploaded in parallel on a shared worker pool; a per-upload semaphore caps how many
+ * parts are buffered at once, so memory per upload is bounded by
+ * {@code partConcurrency * partSize}.
+ */
+@Slf4j
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class S3MultipartUploader {
+	private static final long MIN_PART_SIZE = 5 * 1024 * 1024; // 5MB, S3 lower bound
+
+	S3Client s3Client;
+	ExecutorService workers;
+	long multipartThreshold;
+	int partSize;
+	int partConcurrency;
+
+	AtomicLong uploadCount = new AtomicLong();
+	AtomicLong bytesUploaded = new AtomicLong();
+	AtomicLong uploadNanos = new AtomicLong();
+
+	public S3MultipartUploader(S3Client s3Client, UploadProperties properties) {
+		this.s3Client = s3Client;
+		this.multipartThreshold = properties.getMultipartThreshold().toBytes();
+		this.partSize = (int) Math.max(MIN_PART_SIZE, properties.getPartSize().toBytes());
+		this.partConcurrency = Math.max(1, properties.getPartConcurrency());
+
+		AtomicInteger threadIndex = new AtomicInteger();
+		this.workers = Executors.newFixedThreadPool(properties.getWorkerThreads(), r -> {
+			Thread thread = new Thread(r, "s3-upload-" + threadIndex.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * Uploads {@code size} bytes from {@code input}, or the whole stream when the size
+	 * is not known ({@code size < 0}).
+	 *
+	 * @return the ETag S3 assigned to the stored object
+	 */
+	public UploadResult upload(String bucket, String key, String contentType, InputStream input, long size)
+			throws IOException {
+		long started = System.nanoTime();
+		UploadResult result;
+
+		if (size >= 0 && size < multipartThreshold) {
+			result = putSingle(bucket, key, contentType, RequestBody.fromInputStream(input, size), size);
+		} else {
+			byte[] firstPart = input.readNBytes(partSize);
+			if (firstPart.length < partSize) {
+				result = putSingle(bucket, key, contentType, RequestBody.fromBytes(firstPart), firstPart.length);
+			} else {
+				result = putMultipart(bucket, key, contentType, firstPart, input);
+			}
+		}
+
+		record(result, System.nanoTime() - started, key);
+		return result;
+	}
+
+	private UploadResult putSingle(String bucket, String key, String contentType, RequestBody body, long size) {
+		PutObjectRequest putObjectRequest = PutObjectRequest.builder()
+				.bucket(bucket)
+				.key(key)
+				.contentType(contentType)
+				.build();
+		var response = s3Client.putObject(putObjectRequest, body);
+		return new UploadResult(response.eTag(), size, 1);
+	}
+
+	private UploadResult putMultipart(String bucket, String key, String contentType, byte[] firstPart,
+			InputStream input) throws IOException {
+		CreateMultipartUploadRequest createRequest = CreateMultipartUploadRequest.builder()
+				.bucket(bucket)
+				.key(key)
+				.contentType(contentType)
+				.build();
+		String uploadId = s3Client.createMultipartUpload(createRequest).uploadId();
+
+		Semaphore inFlight = new Semaphore(partConcurrency);
+		AtomicBoolean aborted = new AtomicBoolean();
+		List<CompletableFuture<CompletedPart>> parts = new ArrayList<>();
+		long size = 0;
+		try {
+			byte[] part = firstPart;
+			int partNumber = 1;
+			while (part.length > 0) {
+				inFlight.acquire();
+				failFast(parts);
+				parts.add(submitPart(bucket, key, uploadId, partNumber++, part, inFlight, aborted));
+				size += part.length;
+				part = input.readNBytes(partSize);
+			}
+
+			List<CompletedPart> completedParts = new ArrayList<>(parts.size());
+			for (var future : parts) {
+				completedParts.add(future.join());
+			}
+			completedParts.sort(Comparator.comparing(CompletedPart::partNumber));
+
+			CompleteMultipartUploadRequest completeRequest = CompleteMultipartUploadRequest.builder()
+					.bucket(bucket)
+					.key(key)
+					.uploadId(uploadId)
+					.multipartUpload(CompletedMultipartUpload.builder().parts(completedParts).build())
+					.build();
+			var response = s3Client.completeMultipartUpload(completeRequest);
+			return new UploadResult(response.eTag(), size, completedParts.size());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			abort(bucket, key, uploadId, parts, aborted);
+			throw new IOException("Upload interrupted: " + key, e);
+		} catch (CompletionException e) {
+			abort(bucket, key, uploadId, parts, aborted);
+			throw e.getCause() instanceof SdkException sdkException ? sdkException : e;
+		} catch (IOException | RuntimeException e) {
+			abort(bucket, key, uploadId, parts, aborted);
+			throw e;
+		}
+	}
+
+	private CompletableFuture<CompletedPart> submitPart(String bucket, String key, String uploadId, int partNumber,
+			byte[] data, Semaphore inFlight, AtomicBoolean aborted) {
+		return CompletableFuture.supplyAsync(() -> {
+			try {
+				if (aborted.get())
+					throw new CancellationException("Upload aborted: " + key);
+				UploadPartRequest uploadPartRequest = UploadPartRequest.builder()
+						.bucket(bucket)
+						.key(key)
+						.uploadId(uploadId)
+						.partNumber(partNumber)
+						.contentLength((long) data.length)
+						.build();
+				String etag = s3Client.uploadPart(uploadPartRequest, RequestBody.fromBytes(data)).eTag();
+				return CompletedPart.builder().partNumber(partNumber).eTag(etag).build();
+			} finally {
+				inFlight.release();
+			}
+		}, workers);
+	}
+
+	/**
+	 * Stops reading the source as soon as any part has failed instead of buffering
+	 * the rest of a stream that will be thrown away.
+	 */
+	private void failFast(List<CompletableFuture<CompletedPart>> parts) {
+		for (var future : parts) {
+			if (future.isCompletedExceptionally())
+				future.join();
+		}
+	}
+
+	/**
+	 * Parts still queued are skipped, and those already sending are waited for: a part
+	 * that lands after the abort would stay in the bucket, billed, with no upload to
+	 * complete or abort it.
+	 */
+	private void abort(String bucket, String key, String uploadId, List<CompletableFuture<CompletedPart>> parts,
+			AtomicBoolean aborted) {
+		aborted.set(true);
+		for (var future : parts) {
+			try {
+				future.join();
+			} catch (CompletionException | CancellationException e) {
+				// the upload is being thrown away anyway
+			}
+		}
+		try {
+			AbortMultipartUploadRequest abortRequest = AbortMultipartUploadRequest.builder()
+					.bucket(bucket)
+					.key(key)
+					.uploadId(uploadId)
+					.build();
+			s3Client.abortMultipartUpload(abortRequest);
+			log.warn("Aborted multipart upload {} for key: {}", uploadId, key);
+		} catch (SdkException e) {
+			log.error("Failed to abort multipart upload {} for key: {}", uploadId, key, e);
+		}
+	}
+
+	private void record(UploadResult result, long elapsedNanos, String key) {
+		uploadCount.incrementAndGet();
+		bytesUploaded.addAndGet(result.size());
+		uploadNanos.addAndGet(elapsedNanos);
+
+		double seconds = elapsedNanos / 1_000_000_000.0;
+		double megabytesPerSecond = seconds > 0 ? result.size() / (1024.0 * 1024.0) / seconds : 0;
+		log.info("Uploaded {} bytes in {} part(s) to key: {} in {} ms ({} MB/s)", result.size(), result.parts(), key,
+				elapsedNanos / 1_000_000, String.format("%.2f", megabytesPerSecond));
+	}
+
+	public long getUploadCount() {
+		return uploadCount.get();
+	}
+
+	public long getBytesUploaded() {
+		return bytesUploaded.get();
+	}
+
+	/** Time spent uploading since startup, summed over concurrent uploads. */
+	public Duration getUploadTime() {
+		return Duration.ofNanos(uploadNanos.get());
+	}
+
+	/** Average throughput over every upload since startup, in bytes per second. */
+	public double getAverageThroughput() {
+		long nanos = uploadNanos.get();
+		return nanos == 0 ? 0 : bytesUploaded.get() * 1_000_000_000.0 / nanos;
+	}
+
+	@PreDestroy
+	void shutdown() {
+		workers.shutdown();
+	}
+
+	public record UploadResult(String etag, long size, int parts) {
+	}
+}
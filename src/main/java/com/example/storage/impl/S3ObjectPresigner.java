@@ -0,0 +1,62 @@
+package com.example.storage.impl;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.example.storage.ObjectPresigner;
+import com.example.storage.PresignedRequest;
+
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import software.amazon.awssdk.services.s3.presigner.S3Presigner;
+import software.amazon.awssdk.services.s3.presigner.model.GetObjectPresignRequest;
+import software.amazon.awssdk.services.s3.presigner.model.PutObjectPresignRequest;
+
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class S3ObjectPresigner implements ObjectPresigner {
+	S3Presigner presigner;
+	String bucket;
+
+//	@formatter:off
+	@Override
+	public PresignedRequest presignGet(String key, Duration ttl, String contentType, String contentDisposition) {
+		var presigned = presigner.presignGetObject(GetObjectPresignRequest.builder()
+				.signatureDuration(ttl)
+				.getObjectRequest(request -> request
+						.bucket(bucket)
+						.key(key)
+						.responseContentType(contentType)
+						.responseContentDisposition(contentDisposition))
+				.build());
+		return toRequest(presigned);
+	}
+
+	@Override
+	public PresignedRequest presignPut(String key, Duration ttl, String contentType, long size) {
+		var presigned = presigner.presignPutObject(PutObjectPresignRequest.builder()
+				.signatureDuration(ttl)
+				.putObjectRequest(request -> request
+						.bucket(bucket)
+						.key(key)
+						.contentType(contentType)
+						.contentLength(size))
+				.build());
+		return toRequest(presigned);
+	}
+//	@formatter:on
+
+	/** The host header is set by every HTTP client on its own. */
+	private PresignedRequest toRequest(software.amazon.awssdk.awscore.presigner.PresignedRequest presigned) {
+		Map<String, String> headers = new LinkedHashMap<>();
+		for (Map.Entry<String, List<String>> header : presigned.signedHeaders().entrySet()) {
+			if (!header.getKey().equalsIgnoreCase("host"))
+				headers.put(header.getKey(), String.join(",", header.getValue()));
+		}
+		return new PresignedRequest(URI.create(presigned.url().toString()), headers, presigned.expiration());
+	}
+}
@@ -0,0 +1,173 @@
+package com.example.storage.impl;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import com.example.storage.ObjectContent;
+import com.example.storage.ObjectMetadata;
+import com.example.storage.ObjectNotFoundException;
+import com.example.storage.ObjectStore;
+import com.example.storage.StorageException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AccessLevel;
+import lombok.RequiredArgsConstructor;
+import lombok.experimental.FieldDefaults;
+import lombok.extern.slf4j.Slf4j;
+import software.amazon.awssdk.awscore.exception.AwsServiceException;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.Delete;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.S3Error;
+import software.amazon.awssdk.services.s3.model.S3Object;
+
+@Slf4j
+@RequiredArgsConstructor
+@FieldDefaults(makeFinal = true, level = AccessLevel.PRIVATE)
+public class S3ObjectStore implements ObjectStore {
+	S3Client s3Client;
+	S3MultipartUploader uploader;
+	String bucket;
+	MeterRegistry meterRegistry;
+
+	private static final int MAX_KEYS_PER_DELETE = 1000;
+
+//	@formatter:off
+	@Override
+	public ObjectMetadata put(String key, String contentType, InputStream input, long size) throws IOException {
+		try {
+			var result = uploader.upload(bucket, key, contentType, input, size);
+			return new ObjectMetadata(key, result.size(), result.etag(), null);
+		} catch (SdkException e) {
+			throw translate(e, "put", "uploading file to S3");
+		}
+	}
+
+	@Override
+	public ObjectContent get(String key) {
+		return getObject(GetObjectRequest.builder()
+				.bucket(bucket)
+				.key(key)
+				.build());
+	}
+
+	@Override
+	public ObjectContent getRange(String key, long start, long end) {
+		return getObject(GetObjectRequest.builder()
+				.bucket(bucket)
+				.key(key)
+				.range("bytes=" + start + "-" + end)
+				.build());
+	}
+
+	@Override
+	public Optional<ObjectMetadata> head(String key) {
+	    try {
+	        HeadObjectRequest headObjectRequest = HeadObjectRequest.builder()
+	                .bucket(bucket)
+	                .key(key)
+	                .build();
+	        var head = s3Client.headObject(headObjectRequest);
+	        return Optional.of(new ObjectMetadata(key, head.contentLength(), head.eTag(), head.lastModified()));
+	    } catch (NoSuchKeyException e) {
+	        log.warn("File not found in S3 with key: {}", key);
+	        return Optional.empty();
+	    } catch (SdkException e) {
+	        throw translate(e, "head", "checking file existence on S3");
+	    }
+	}
+
+	@Override
+	public void delete(String key) {
+	    try {
+	        DeleteObjectRequest deleteObjectRequest = DeleteObjectRequest.builder()
+	                .bucket(bucket)
+	                .key(key)
+	                .build();
+	        s3Client.deleteObject(deleteObjectRequest);
+	    } catch (SdkException e) {
+	        throw translate(e, "delete", "deleting file from S3");
+	    }
+	}
+
+	/**
+	 * Sends the keys in DeleteObjects requests of up to 1000 keys each, the S3 limit.
+	 */
+	@Override
+	public List<String> deleteAll(Collection<String> keys) {
+		List<String> pending = new ArrayList<>(keys);
+		List<String> failed = new ArrayList<>();
+		for (int from = 0; from < pending.size(); from += MAX_KEYS_PER_DELETE) {
+			List<String> batch = pending.subList(from, Math.min(from + MAX_KEYS_PER_DELETE, pending.size()));
+			try {
+				DeleteObjectsRequest deleteObjectsRequest = DeleteObjectsRequest.builder()
+						.bucket(bucket)
+						.delete(Delete.builder()
+								.objects(batch.stream().map(key -> ObjectIdentifier.builder().key(key).build()).toList())
+								.quiet(true)
+								.build())
+						.build();
+				var response = s3Client.deleteObjects(deleteObjectsRequest);
+				for (S3Error error : response.errors()) {
+					log.error("S3 SDK error while deleting key {}: {} - {}", error.key(), error.code(), error.message());
+					S3Errors.count(meterRegistry, "delete-batch", error.code());
+					failed.add(error.key());
+				}
+			} catch (SdkException e) {
+				translate(e, "delete-batch", "deleting " + batch.size() + " files from S3");
+				failed.addAll(batch);
+			}
+		}
+		return failed;
+	}
+
+	@Override
+	public List<String> list(String prefix) {
+		try {
+			ListObjectsV2Request listRequest = ListObjectsV2Request.builder()
+					.bucket(bucket)
+					.prefix(prefix)
+					.build();
+			return s3Client.listObjectsV2Paginator(listRequest).contents().stream()
+					.map(S3Object::key)
+					.toList();
+		} catch (SdkException e) {
+			throw translate(e, "list", "listing files on S3");
+		}
+	}
+
+	private ObjectContent getObject(GetObjectRequest getObjectRequest) {
+		try {
+			var s3Object = s3Client.getObject(getObjectRequest);
+			return ObjectContent.of(s3Object, s3Object.response().contentLength());
+		} catch (NoSuchKeyException e) {
+			S3Errors.count(meterRegistry, "get", e);
+			throw new ObjectNotFoundException(getObjectRequest.key(), e);
+		} catch (SdkException e) {
+			throw translate(e, "get", "fetching file from S3");
+		}
+	}
+
+	private RuntimeException translate(SdkException e, String operation, String action) {
+	    S3Errors.count(meterRegistry, operation, e);
+	    if (e instanceof AwsServiceException awsServiceException) {
+	        log.error("S3 SDK error while {}: {} - {}", action, awsServiceException.awsErrorDetails().errorCode(),
+	                awsServiceException.awsErrorDetails().errorMessage(), e);
+	    } else {
+	        log.error("Unexpected SDK exception while {}: {}", action, e.getMessage(), e);
+	    }
+	    return new StorageException("S3 SDK error", e);
+	}
+//	@formatter:on
+}
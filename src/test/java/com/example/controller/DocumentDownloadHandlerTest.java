@@ -0,0 +1,219 @@
+package com.example.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import com.example.dto.DocumentInfo;
+import com.example.dto.DocumentResponse;
+import com.example.dto.FileType;
+import com.example.service.DocumentService;
+import com.example.storage.impl.InMemoryObjectStore;
+
+class DocumentDownloadHandlerTest {
+	private static final String KEY = "public/doc-notes.txt";
+	private static final String BODY = "0123456789abcdefghij";
+	private static final Date UPLOADED = new Date(1_700_000_000_000L);
+
+	InMemoryObjectStore objectStore = new InMemoryObjectStore();
+	DocumentService service = mock(DocumentService.class);
+	DocumentDownloadHandler handler = new DocumentDownloadHandler(service);
+	DocumentInfo info = DocumentInfo.builder()
+			.fileId("doc")
+			.fileName("notes.txt")
+			.fileKey(KEY)
+			.fileType(FileType.PUBLIC)
+			.mime("text/plain")
+			.fileSize(BODY.length())
+			.etag("abc123")
+			.uploadAt(UPLOADED)
+			.build();
+
+	@BeforeEach
+	void storeDocument() throws IOException {
+		byte[] data = BODY.getBytes(StandardCharsets.US_ASCII);
+		objectStore.put(KEY, "text/plain", new ByteArrayInputStream(data), data.length);
+		when(service.getDownloadRedirect(eq(info), any())).thenReturn(Optional.empty());
+		when(service.openFile(eq(info), isNull(), isNull()))
+				.thenAnswer(call -> new DocumentResponse("text/plain", (long) data.length, objectStore.get(KEY)));
+		when(service.openFile(eq(info), any(Long.class), any(Long.class))).thenAnswer(call -> {
+			long start = call.getArgument(1);
+			long end = call.getArgument(2);
+			return new DocumentResponse("text/plain", end - start + 1, objectStore.getRange(KEY, start, end));
+		});
+	}
+
+	@Test
+	void sendsWholeBodyWithoutRange() throws IOException {
+		var response = handler.serve(info, new HttpHeaders(), null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals("bytes", response.getHeaders().getFirst(HttpHeaders.ACCEPT_RANGES));
+		assertEquals("\"abc123\"", response.getHeaders().getETag());
+		assertEquals(BODY, body(response));
+	}
+
+	@Test
+	void sendsSingleRange() throws IOException {
+		var response = handler.serve(info, range("bytes=2-5"), null);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 2-5/20", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(4, response.getHeaders().getContentLength());
+		assertEquals("2345", body(response));
+	}
+
+	@Test
+	void sendsSuffixAndOpenEndedRanges() throws IOException {
+		var suffix = handler.serve(info, range("bytes=-3"), null);
+		assertEquals("bytes 17-19/20", suffix.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("hij", body(suffix));
+
+		var openEnded = handler.serve(info, range("bytes=15-"), null);
+		assertEquals("bytes 15-19/20", openEnded.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("fghij", body(openEnded));
+	}
+
+	@Test
+	void clampsRangeEndToSize() throws IOException {
+		var response = handler.serve(info, range("bytes=18-100"), null);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("bytes 18-19/20", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals("ij", body(response));
+	}
+
+	@Test
+	void rejectsRangePastTheEnd() {
+		var response = handler.serve(info, range("bytes=20-30"), null);
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+		assertEquals("bytes */20", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertNull(response.getBody());
+	}
+
+	@Test
+	void rejectsMalformedRange() {
+		var response = handler.serve(info, range("bytes=five-six"), null);
+
+		assertEquals(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE, response.getStatusCode());
+		assertEquals("bytes */20", response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+	}
+
+	@Test
+	void sendsSeveralRangesAsMultipartByteranges() throws IOException {
+		var response = handler.serve(info, range("bytes=0-1,10-12"), null);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		MediaType contentType = response.getHeaders().getContentType();
+		assertEquals("multipart/byteranges", contentType.getType() + "/" + contentType.getSubtype());
+		String boundary = contentType.getParameter("boundary");
+		String expected = "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "Content-Range: bytes 0-1/20\r\n\r\n"
+				+ "01"
+				+ "\r\n--" + boundary + "\r\n"
+				+ "Content-Type: text/plain\r\n"
+				+ "Content-Range: bytes 10-12/20\r\n\r\n"
+				+ "abc"
+				+ "\r\n--" + boundary + "--\r\n";
+		assertEquals(expected, body(response));
+	}
+
+	@Test
+	void honoursRangeWhenIfRangeMatchesETag() throws IOException {
+		HttpHeaders headers = range("bytes=0-3");
+		headers.set(HttpHeaders.IF_RANGE, "\"abc123\"");
+
+		var response = handler.serve(info, headers, null);
+
+		assertEquals(HttpStatus.PARTIAL_CONTENT, response.getStatusCode());
+		assertEquals("0123", body(response));
+	}
+
+	@Test
+	void sendsWholeBodyWhenIfRangeETagIsStale() throws IOException {
+		HttpHeaders headers = range("bytes=0-3");
+		headers.set(HttpHeaders.IF_RANGE, "\"older\"");
+
+		var response = handler.serve(info, headers, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertNull(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE));
+		assertEquals(BODY, body(response));
+	}
+
+	@Test
+	void comparesIfRangeDateAgainstUploadTime() throws IOException {
+		HttpHeaders current = range("bytes=0-3");
+		current.setDate(HttpHeaders.IF_RANGE, UPLOADED.getTime());
+		assertEquals(HttpStatus.PARTIAL_CONTENT, handler.serve(info, current, null).getStatusCode());
+
+		HttpHeaders stale = range("bytes=0-3");
+		stale.setDate(HttpHeaders.IF_RANGE, UPLOADED.getTime() - 60_000);
+		var response = handler.serve(info, stale, null);
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(BODY, body(response));
+	}
+
+	@Test
+	void ignoresUnparsableIfRange() throws IOException {
+		HttpHeaders headers = range("bytes=0-3");
+		headers.set(HttpHeaders.IF_RANGE, "yesterday");
+
+		var response = handler.serve(info, headers, null);
+
+		assertEquals(HttpStatus.OK, response.getStatusCode());
+		assertEquals(BODY, body(response));
+	}
+
+	@Test
+	void answersConditionalRequestsWithNotModified() {
+		HttpHeaders ifNoneMatch = new HttpHeaders();
+		ifNoneMatch.setIfNoneMatch("W/\"abc123\"");
+		assertEquals(HttpStatus.NOT_MODIFIED, handler.serve(info, ifNoneMatch, null).getStatusCode());
+
+		HttpHeaders ifModifiedSince = new HttpHeaders();
+		ifModifiedSince.setIfModifiedSince(UPLOADED.getTime());
+		assertEquals(HttpStatus.NOT_MODIFIED, handler.serve(info, ifModifiedSince, null).getStatusCode());
+	}
+
+	@Test
+	void setsAttachmentName() {
+		var response = handler.serve(info, new HttpHeaders(), "notes.txt");
+
+		assertTrue(response.getHeaders().getFirst(HttpHeaders.CONTENT_DISPOSITION).contains("filename=\"notes.txt\""));
+	}
+
+	private HttpHeaders range(String range) {
+		HttpHeaders headers = new HttpHeaders();
+		headers.set(HttpHeaders.RANGE, range);
+		return headers;
+	}
+
+	private String body(ResponseEntity<StreamingResponseBody> response) throws IOException {
+		var out = new ByteArrayOutputStream();
+		response.getBody().writeTo(out);
+		return out.toString(StandardCharsets.US_ASCII);
+	}
+}
@@ -0,0 +1,68 @@
+package com.example.dto;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:document-cursor-test;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"app.storage.type=memory",
+		"app.storage.outbox.interval=PT1H" })
+@AutoConfigureMockMvc
+class DocumentCursorTest {
+	@Autowired
+	MockMvc mockMvc;
+
+	@Test
+	void decodesWhatItEncodes() {
+		var cursor = new DocumentCursor(new Date(1_700_000_000_123L), 42);
+
+		assertEquals(cursor, DocumentCursor.decode(cursor.encode()));
+	}
+
+	@Test
+	void encodesToUrlSafeTokenWithoutPadding() {
+		String token = new DocumentCursor(new Date(Long.MAX_VALUE), Integer.MAX_VALUE).encode();
+
+		assertTrue(token.matches("[A-Za-z0-9_-]+"), token);
+	}
+
+	@Test
+	void refusesMalformedTokens() {
+		assertInvalid("not a cursor!");
+		assertInvalid(encode("1700000000000"));
+		assertInvalid(encode("yesterday:42"));
+		assertInvalid(encode("1700000000000:forty-two"));
+		assertInvalid("");
+	}
+
+	@Test
+	void answersMalformedCursorWithBadRequest() throws Exception {
+		mockMvc.perform(get("/api/documents/public/").param("cursor", "not a cursor!"))
+				.andExpect(status().isBadRequest())
+				.andExpect(content().string("Invalid cursor: not a cursor!"));
+	}
+
+	private void assertInvalid(String token) {
+		var e = assertThrows(IllegalArgumentException.class, () -> DocumentCursor.decode(token));
+		assertEquals("Invalid cursor: " + token, e.getMessage());
+	}
+
+	private String encode(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.US_ASCII));
+	}
+}
@@ -0,0 +1,300 @@
+package com.example.load;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Primary;
+import org.springframework.util.unit.DataSize;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+
+import software.amazon.awssdk.services.s3.S3Client;
+
+/**
+ * Pushes a mixed workload through the HTTP API of a running application backed by
+ * {@link FakeS3Client} and an in-memory H2, and reports p50/p95/p99 latency and
+ * throughput per endpoint. Excluded from the normal build; run with
+ *
+ * <pre>
+ * mvn -P load-test test -Dload.concurrency=32 -Dload.duration=PT60S
+ * </pre>
+ *
+ * Settings are the {@code load.*} properties below. The request mix is drawn from a
+ * seeded generator, so runs with the same settings send the same sequence of
+ * requests per worker. The report is printed and written to
+ * {@code target/load-test-report.json}.
+ */
+@Tag("load")
+@SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT, properties = {
+		"spring.datasource.url=jdbc:h2:mem:load-test;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"app.storage.type=s3",
+		"app.cache.content.disk-directory=target/load-test-cache",
+		"logging.level.com.example=WARN" })
+class DocumentLoadTest {
+	private static final String[] TOPICS = { "algebra", "calculus", "physics", "chemistry", "history", "biology",
+			"literature", "economics" };
+
+	@LocalServerPort
+	int port;
+
+	@Value("${load.concurrency:16}")
+	int concurrency;
+
+	@Value("${load.warmup:PT5S}")
+	Duration warmup;
+
+	@Value("${load.duration:PT30S}")
+	Duration duration;
+
+	@Value("${load.documents:200}")
+	int documents;
+
+	@Value("${load.document-size:256KB}")
+	DataSize documentSize;
+
+	@Value("${load.upload-size:1MB}")
+	DataSize uploadSize;
+
+	/** Relative weights of the operations. */
+	@Value("#{${load.mix:{list: 30, download: 40, search: 20, upload: 10}}}")
+	Map<String, Integer> mix;
+
+	@Value("${load.seed:42}")
+	long seed;
+
+	@Value("${load.s3-latency:PT0S}")
+	Duration s3Latency;
+
+	@Value("${load.max-failure-rate:0.01}")
+	double maxFailureRate;
+
+	HttpClient client;
+	ObjectMapper mapper = new ObjectMapper();
+	String token;
+	List<String> fileIds = new CopyOnWriteArrayList<>();
+	AtomicLong uploadCounter = new AtomicLong();
+
+	@TestConfiguration
+	static class FakeStorage {
+		@Bean
+		@Primary
+		S3Client fakeS3Client(@Value("${load.s3-latency:PT0S}") Duration latency) {
+			return new FakeS3Client(latency);
+		}
+	}
+
+	@Test
+	void mixedWorkload() throws Exception {
+		client = HttpClient.newBuilder()
+				.version(HttpClient.Version.HTTP_1_1)
+				.executor(Executors.newFixedThreadPool(Math.max(4, concurrency)))
+				.connectTimeout(Duration.ofSeconds(5))
+				.build();
+		token = fetchToken();
+		seedDocuments();
+
+		run(warmup, seed - 1);
+		LoadReport report = run(duration, seed);
+
+		System.out.println();
+		System.out.println("Load test: " + concurrency + " workers for " + duration + ", mix " + mix);
+		System.out.print(report.toTable());
+		Path output = Path.of("target", "load-test-report.json");
+		Files.createDirectories(output.getParent());
+		mapper.enable(SerializationFeature.INDENT_OUTPUT).writeValue(output.toFile(), report.toMap());
+		System.out.println("Report written to " + output.toAbsolutePath());
+
+		assertTrue(report.totalRequests() > 0, "No request completed");
+		assertTrue(report.totalFailures() <= report.totalRequests() * maxFailureRate,
+				report.totalFailures() + " of " + report.totalRequests() + " requests failed");
+	}
+
+	private LoadReport run(Duration length, long runSeed) throws Exception {
+		var weights = new ArrayList<>(mix.entrySet());
+		int totalWeight = weights.stream().mapToInt(Map.Entry::getValue).sum();
+		byte[] payload = new byte[(int) uploadSize.toBytes()];
+		new Random(runSeed).nextBytes(payload);
+
+		ExecutorService workers = Executors.newFixedThreadPool(concurrency);
+		List<Future<LoadReport.Samples>> results = new ArrayList<>();
+		long started = System.nanoTime();
+		long deadline = started + length.toNanos();
+		for (int worker = 0; worker < concurrency; worker++) {
+			var random = new Random(runSeed * 31 + worker);
+			results.add(workers.submit(() -> {
+				var samples = new LoadReport.Samples();
+				while (System.nanoTime() < deadline) {
+					String operation = pick(weights, totalWeight, random);
+					long requestStarted = System.nanoTime();
+					boolean success;
+					try {
+						success = execute(operation, random, payload);
+					} catch (IOException e) {
+						success = false;
+					}
+					samples.record(operation, System.nanoTime() - requestStarted, success);
+				}
+				return samples;
+			}));
+		}
+
+		List<LoadReport.Samples> samples = new ArrayList<>();
+		for (var result : results) {
+			samples.add(result.get());
+		}
+		Duration elapsed = Duration.ofNanos(System.nanoTime() - started);
+		workers.shutdown();
+		return new LoadReport(settings(), elapsed, samples);
+	}
+
+	private boolean execute(String operation, Random random, byte[] payload) throws IOException, InterruptedException {
+		return switch (operation) {
+		case "list" -> send(get("/api/documents/public/?size=50", false));
+		case "download" -> send(get("/api/documents/" + fileIds.get(random.nextInt(fileIds.size())), true));
+		case "search" -> send(get("/api/documents?fileName=" + TOPICS[random.nextInt(TOPICS.length)], true));
+		case "upload" -> upload(payload, random) != null;
+		default -> throw new IllegalArgumentException("Unknown operation in load.mix: " + operation);
+		};
+	}
+
+	private String pick(List<Map.Entry<String, Integer>> weights, int totalWeight, Random random) {
+		int ticket = random.nextInt(totalWeight);
+		for (var weight : weights) {
+			ticket -= weight.getValue();
+			if (ticket < 0)
+				return weight.getKey();
+		}
+		throw new IllegalStateException();
+	}
+
+	private void seedDocuments() throws IOException, InterruptedException {
+		var random = new Random(seed);
+		byte[] payload = new byte[(int) documentSize.toBytes()];
+		random.nextBytes(payload);
+		for (int i = 0; i < documents; i++) {
+			String fileId = upload(payload, random);
+			if (fileId == null)
+				throw new IllegalStateException("Failed to seed document " + i);
+			fileIds.add(fileId);
+		}
+	}
+
+	/**
+	 * Sends a multipart upload. Every body starts with a unique counter, so content
+	 * deduplication never turns an upload into a metadata-only insert.
+	 */
+	private String upload(byte[] payload, Random random) throws IOException, InterruptedException {
+		String boundary = UUID.randomUUID().toString();
+		String fileType = random.nextBoolean() ? "PUBLIC" : "TEACHER";
+		long sequence = uploadCounter.incrementAndGet();
+		String fileName = "lecture-" + sequence + " " + TOPICS[random.nextInt(TOPICS.length)]
+				+ ".zip";
+		String head = field(boundary, "fileName", fileName) + field(boundary, "fileType", fileType)
+				+ "--" + boundary + "\r\n"
+				+ "Content-Disposition: form-data; name=\"document\"; filename=\"" + fileName + "\"\r\n"
+				+ "Content-Type: application/zip\r\n\r\n";
+		String tail = "\r\n--" + boundary + "--\r\n";
+		byte[] unique = ByteBuffer.allocate(Long.BYTES).putLong(sequence).array();
+
+		var request = HttpRequest.newBuilder(uri("/api/documents/"))
+				.header("Authorization", "Bearer " + token)
+				.header("Content-Type", "multipart/form-data; boundary=" + boundary)
+				.POST(BodyPublishers.concat(BodyPublishers.ofString(head), BodyPublishers.ofByteArray(unique),
+						BodyPublishers.ofByteArray(payload), BodyPublishers.ofString(tail)))
+				.build();
+		var response = client.send(request, BodyHandlers.ofString());
+		if (response.statusCode() != 201)
+			return null;
+		return mapper.readTree(response.body()).path("fileId").asText(null);
+	}
+
+	private String field(String boundary, String name, String value) {
+		return "--" + boundary + "\r\nContent-Disposition: form-data; name=\"" + name + "\"\r\n\r\n" + value + "\r\n";
+	}
+
+	private HttpRequest get(String path, boolean authenticated) {
+		var request = HttpRequest.newBuilder(uri(path)).GET();
+		if (authenticated)
+			request.header("Authorization", "Bearer " + token);
+		return request.build();
+	}
+
+	private boolean send(HttpRequest request) throws IOException, InterruptedException {
+		int status = client.send(request, BodyHandlers.discarding()).statusCode();
+		return status >= 200 && status < 300;
+	}
+
+	private String fetchToken() throws IOException, InterruptedException {
+		var request = HttpRequest.newBuilder(uri("/api/get-token/"))
+				.header("Content-Type", "application/json")
+				.POST(BodyPublishers.ofString("{\"username\":\"teacher\",\"password\":\"12345678\"}"))
+				.build();
+		var response = client.send(request, BodyHandlers.ofString());
+		if (response.statusCode() != 200)
+			throw new IllegalStateException("Could not get a token: " + response.statusCode());
+		return response.body();
+	}
+
+	private URI uri(String path) {
+		String[] parts = path.split("\\?", 2);
+		String query = parts.length > 1 ? "?" + encodeQuery(parts[1]) : "";
+		return URI.create("http://localhost:" + port + parts[0] + query);
+	}
+
+	private String encodeQuery(String query) {
+		var encoded = new ArrayList<String>();
+		for (String pair : query.split("&")) {
+			String[] keyValue = pair.split("=", 2);
+			encoded.add(keyValue[0] + "=" + URLEncoder.encode(keyValue.length > 1 ? keyValue[1] : "", StandardCharsets.UTF_8));
+		}
+		return String.join("&", encoded);
+	}
+
+	private Map<String, Object> settings() {
+		Map<String, Object> settings = new LinkedHashMap<>();
+		settings.put("concurrency", concurrency);
+		settings.put("warmup", warmup.toString());
+		settings.put("duration", duration.toString());
+		settings.put("documents", documents);
+		settings.put("documentSize", documentSize.toBytes());
+		settings.put("uploadSize", uploadSize.toBytes());
+		settings.put("mix", mix);
+		settings.put("seed", seed);
+		settings.put("s3Latency", s3Latency.toString());
+		settings.put("processors", Runtime.getRuntime().availableProcessors());
+		return settings;
+	}
+}
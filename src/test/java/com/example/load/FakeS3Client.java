@@ -0,0 +1,255 @@
+package com.example.load;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import software.amazon.awssdk.core.ResponseInputStream;
+import software.amazon.awssdk.core.exception.SdkClientException;
+import software.amazon.awssdk.core.sync.RequestBody;
+import software.amazon.awssdk.core.sync.ResponseTransformer;
+import software.amazon.awssdk.http.AbortableInputStream;
+import software.amazon.awssdk.services.s3.S3Client;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.AbortMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CompleteMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.CompletedPart;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadRequest;
+import software.amazon.awssdk.services.s3.model.CreateMultipartUploadResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectResponse;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsRequest;
+import software.amazon.awssdk.services.s3.model.DeleteObjectsResponse;
+import software.amazon.awssdk.services.s3.model.GetObjectRequest;
+import software.amazon.awssdk.services.s3.model.GetObjectResponse;
+import software.amazon.awssdk.services.s3.model.HeadObjectRequest;
+import software.amazon.awssdk.services.s3.model.HeadObjectResponse;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Request;
+import software.amazon.awssdk.services.s3.model.ListObjectsV2Response;
+import software.amazon.awssdk.services.s3.model.NoSuchKeyException;
+import software.amazon.awssdk.services.s3.model.NoSuchUploadException;
+import software.amazon.awssdk.services.s3.model.ObjectIdentifier;
+import software.amazon.awssdk.services.s3.model.PutObjectRequest;
+import software.amazon.awssdk.services.s3.model.PutObjectResponse;
+import software.amazon.awssdk.services.s3.model.S3Object;
+import software.amazon.awssdk.services.s3.model.UploadPartRequest;
+import software.amazon.awssdk.services.s3.model.UploadPartResponse;
+
+/**
+ * In-process stand-in for S3 covering the calls the application makes: single and
+ * multipart uploads, whole and ranged reads, HEAD, deletes and listing. Objects live
+ * on the heap and every call can be delayed by a fixed latency to imitate the round
+ * trip to a real bucket. Missing keys fail with {@link NoSuchKeyException} like S3.
+ */
+class FakeS3Client implements S3Client {
+	private final ConcurrentMap<String, StoredObject> objects = new ConcurrentHashMap<>();
+	private final ConcurrentMap<String, ConcurrentSkipListMap<Integer, byte[]>> uploads = new ConcurrentHashMap<>();
+	private final Duration latency;
+
+	FakeS3Client(Duration latency) {
+		this.latency = latency;
+	}
+
+	@Override
+	public PutObjectResponse putObject(PutObjectRequest request, RequestBody body) {
+		roundTrip();
+		byte[] data = read(body);
+		var object = store(request.key(), data, request.contentType(), md5(data));
+		return PutObjectResponse.builder().eTag(object.etag()).build();
+	}
+
+	@Override
+	public CreateMultipartUploadResponse createMultipartUpload(CreateMultipartUploadRequest request) {
+		roundTrip();
+		String uploadId = UUID.randomUUID().toString();
+		uploads.put(uploadId, new ConcurrentSkipListMap<>());
+		return CreateMultipartUploadResponse.builder().uploadId(uploadId).key(request.key()).build();
+	}
+
+	@Override
+	public UploadPartResponse uploadPart(UploadPartRequest request, RequestBody body) {
+		roundTrip();
+		byte[] data = read(body);
+		parts(request.uploadId()).put(request.partNumber(), data);
+		return UploadPartResponse.builder().eTag(md5(data)).build();
+	}
+
+	/** ETags of multipart objects are, as on S3, not a digest of the content. */
+	@Override
+	public CompleteMultipartUploadResponse completeMultipartUpload(CompleteMultipartUploadRequest request) {
+		roundTrip();
+		var parts = parts(request.uploadId());
+		var content = new ByteArrayOutputStream();
+		request.multipartUpload().parts().stream()
+				.sorted(Comparator.comparing(CompletedPart::partNumber))
+				.forEach(part -> content.writeBytes(parts.get(part.partNumber())));
+		uploads.remove(request.uploadId());
+
+		byte[] data = content.toByteArray();
+		String etag = "\"" + md5(data).replace("\"", "") + "-" + parts.size() + "\"";
+		var object = store(request.key(), data, null, etag);
+		return CompleteMultipartUploadResponse.builder().eTag(object.etag()).key(request.key()).build();
+	}
+
+	@Override
+	public AbortMultipartUploadResponse abortMultipartUpload(AbortMultipartUploadRequest request) {
+		roundTrip();
+		uploads.remove(request.uploadId());
+		return AbortMultipartUploadResponse.builder().build();
+	}
+
+	@Override
+	public <ReturnT> ReturnT getObject(GetObjectRequest request,
+			ResponseTransformer<GetObjectResponse, ReturnT> responseTransformer) {
+		roundTrip();
+		var object = find(request.key());
+		int start = 0;
+		int length = object.data().length;
+		if (request.range() != null) {
+			String[] bounds = request.range().substring("bytes=".length()).split("-");
+			start = Integer.parseInt(bounds[0]);
+			int end = bounds.length > 1 && !bounds[1].isEmpty()
+					? Math.min(Integer.parseInt(bounds[1]), object.data().length - 1)
+					: object.data().length - 1;
+			length = end - start + 1;
+		}
+
+		var response = GetObjectResponse.builder()
+				.contentLength((long) length)
+				.contentType(object.contentType())
+				.eTag(object.etag())
+				.lastModified(object.lastModified())
+				.build();
+		try {
+			return responseTransformer.transform(response,
+					AbortableInputStream.create(new ByteArrayInputStream(object.data(), start, length)));
+		} catch (Exception e) {
+			throw SdkClientException.create("Failed to transform response", e);
+		}
+	}
+
+	@Override
+	public ResponseInputStream<GetObjectResponse> getObject(GetObjectRequest request) {
+		return getObject(request, ResponseTransformer.toInputStream());
+	}
+
+	@Override
+	public HeadObjectResponse headObject(HeadObjectRequest request) {
+		roundTrip();
+		var object = find(request.key());
+		return HeadObjectResponse.builder()
+				.contentLength((long) object.data().length)
+				.contentType(object.contentType())
+				.eTag(object.etag())
+				.lastModified(object.lastModified())
+				.build();
+	}
+
+	@Override
+	public DeleteObjectResponse deleteObject(DeleteObjectRequest request) {
+		roundTrip();
+		objects.remove(request.key());
+		return DeleteObjectResponse.builder().build();
+	}
+
+	@Override
+	public DeleteObjectsResponse deleteObjects(DeleteObjectsRequest request) {
+		roundTrip();
+		request.delete().objects().stream().map(ObjectIdentifier::key).forEach(objects::remove);
+		return DeleteObjectsResponse.builder().build();
+	}
+
+	@Override
+	public ListObjectsV2Response listObjectsV2(ListObjectsV2Request request) {
+		roundTrip();
+		String prefix = request.prefix() == null ? "" : request.prefix();
+		var contents = objects.entrySet().stream()
+				.filter(entry -> entry.getKey().startsWith(prefix))
+				.sorted(Map.Entry.comparingByKey())
+				.map(entry -> S3Object.builder()
+						.key(entry.getKey())
+						.size((long) entry.getValue().data().length)
+						.eTag(entry.getValue().etag())
+						.lastModified(entry.getValue().lastModified())
+						.build())
+				.toList();
+		return ListObjectsV2Response.builder().contents(contents).keyCount(contents.size()).isTruncated(false).build();
+	}
+
+	@Override
+	public String serviceName() {
+		return SERVICE_NAME;
+	}
+
+	@Override
+	public void close() {
+	}
+
+	int objectCount() {
+		return objects.size();
+	}
+
+	private StoredObject store(String key, byte[] data, String contentType, String etag) {
+		var object = new StoredObject(data, contentType, etag, Instant.now());
+		objects.put(key, object);
+		return object;
+	}
+
+	private StoredObject find(String key) {
+		var object = objects.get(key);
+		if (object == null)
+			throw NoSuchKeyException.builder().message("The specified key does not exist: " + key).statusCode(404).build();
+		return object;
+	}
+
+	private ConcurrentSkipListMap<Integer, byte[]> parts(String uploadId) {
+		var parts = uploads.get(uploadId);
+		if (parts == null)
+			throw NoSuchUploadException.builder().message("No such upload: " + uploadId).statusCode(404).build();
+		return parts;
+	}
+
+	private void roundTrip() {
+		if (latency.isZero())
+			return;
+		try {
+			Thread.sleep(latency.toMillis());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw SdkClientException.create("Interrupted", e);
+		}
+	}
+
+	private static byte[] read(RequestBody body) {
+		try (InputStream input = body.contentStreamProvider().newStream()) {
+			return input.readAllBytes();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private static String md5(byte[] data) {
+		try {
+			return "\"" + HexFormat.of().formatHex(MessageDigest.getInstance("MD5").digest(data)) + "\"";
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private record StoredObject(byte[] data, String contentType, String etag, Instant lastModified) {
+	}
+}
@@ -0,0 +1,115 @@
+package com.example.load;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Latencies and failures of one load run, per endpoint. Each worker keeps its own
+ * {@link Samples} so recording never contends; they are merged once the run ends.
+ */
+class LoadReport {
+	private final Map<String, Object> settings;
+	private final Duration elapsed;
+	private final Map<String, EndpointResult> endpoints = new LinkedHashMap<>();
+
+	LoadReport(Map<String, Object> settings, Duration elapsed, List<Samples> samples) {
+		this.settings = settings;
+		this.elapsed = elapsed;
+
+		Map<String, List<long[]>> latencies = new LinkedHashMap<>();
+		Map<String, Integer> failures = new LinkedHashMap<>();
+		for (var worker : samples) {
+			worker.latencies.forEach((endpoint, values) -> latencies.computeIfAbsent(endpoint, key -> new ArrayList<>())
+					.add(values.toArray()));
+			worker.failures.forEach((endpoint, count) -> failures.merge(endpoint, count, Integer::sum));
+		}
+		latencies.forEach((endpoint, parts) -> {
+			long[] all = parts.stream().flatMapToLong(Arrays::stream).sorted().toArray();
+			endpoints.put(endpoint, new EndpointResult(all.length, failures.getOrDefault(endpoint, 0),
+					all.length / seconds(), percentile(all, 50), percentile(all, 95), percentile(all, 99),
+					all.length == 0 ? 0 : all[all.length - 1] / 1e6));
+		});
+	}
+
+	Map<String, Object> toMap() {
+		Map<String, Object> report = new LinkedHashMap<>();
+		report.put("settings", settings);
+		report.put("elapsedSeconds", seconds());
+		report.put("totalRequests", totalRequests());
+		report.put("totalFailures", totalFailures());
+		report.put("throughput", totalRequests() / seconds());
+		report.put("endpoints", endpoints);
+		return report;
+	}
+
+	String toTable() {
+		var table = new StringBuilder();
+		table.append(String.format("%-10s %9s %8s %10s %9s %9s %9s %9s%n", "endpoint", "requests", "failed", "req/s",
+				"p50 ms", "p95 ms", "p99 ms", "max ms"));
+		endpoints.forEach((endpoint, result) -> table.append(String.format("%-10s %9d %8d %10.1f %9.2f %9.2f %9.2f %9.2f%n",
+				endpoint, result.requests(), result.failures(), result.throughput(), result.p50(), result.p95(),
+				result.p99(), result.max())));
+		table.append(String.format("%-10s %9d %8d %10.1f%n", "total", totalRequests(), totalFailures(),
+				totalRequests() / seconds()));
+		return table.toString();
+	}
+
+	long totalRequests() {
+		return endpoints.values().stream().mapToLong(EndpointResult::requests).sum();
+	}
+
+	long totalFailures() {
+		return endpoints.values().stream().mapToLong(EndpointResult::failures).sum();
+	}
+
+	Map<String, EndpointResult> getEndpoints() {
+		return endpoints;
+	}
+
+	private double seconds() {
+		return elapsed.toNanos() / 1e9;
+	}
+
+	/** Nearest-rank percentile, in milliseconds. */
+	private static double percentile(long[] sorted, int percent) {
+		if (sorted.length == 0)
+			return 0;
+		int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+		return sorted[Math.max(0, rank - 1)] / 1e6;
+	}
+
+	record EndpointResult(long requests, long failures, double throughput, double p50, double p95, double p99,
+			double max) {
+	}
+
+	/** Recorded by a single worker thread. */
+	static class Samples {
+		private final Map<String, LongList> latencies = new LinkedHashMap<>();
+		private final Map<String, Integer> failures = new LinkedHashMap<>();
+
+		void record(String endpoint, long nanos, boolean success) {
+			latencies.computeIfAbsent(endpoint, key -> new LongList()).add(nanos);
+			if (!success)
+				failures.merge(endpoint, 1, Integer::sum);
+		}
+	}
+
+	private static class LongList {
+		private long[] values = new long[1024];
+		private int size;
+
+		void add(long value) {
+			if (size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		long[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
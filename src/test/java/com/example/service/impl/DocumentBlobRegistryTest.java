@@ -0,0 +1,122 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import com.example.dto.ContentCodec;
+import com.example.dto.OutboxAction;
+import com.example.entity.BlobEntity;
+import com.example.entity.StorageOutboxEntity;
+import com.example.repo.BlobRepo;
+import com.example.repo.StorageOutboxRepo;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:blob-registry-test;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"app.storage.type=memory",
+		"app.storage.outbox.interval=PT1H" })
+class DocumentBlobRegistryTest {
+	private static final String HASH = "a".repeat(64);
+
+	@Autowired
+	DocumentBlobRegistry registry;
+
+	@Autowired
+	BlobRepo blobRepo;
+
+	@Autowired
+	StorageOutboxRepo outboxRepo;
+
+	@BeforeEach
+	void clear() {
+		blobRepo.deleteAll();
+		outboxRepo.deleteAll();
+	}
+
+	@Test
+	void registersNewContentWithOneReference() {
+		registry.register(HASH, "public/first", 10, "\"etag\"", ContentCodec.GZIP);
+
+		BlobEntity blob = blobRepo.findAll().get(0);
+		assertEquals(HASH, blob.getContentHash());
+		assertEquals("public/first", blob.getStorageKey());
+		assertEquals(ContentCodec.GZIP, blob.getCodec());
+		assertEquals(1, blob.getRefCount());
+		assertTrue(registry.isStored(HASH));
+		assertTrue(outboxRepo.findAll().isEmpty());
+	}
+
+	@Test
+	void acquireReferencesStoredContentOnly() {
+		assertTrue(registry.acquire(HASH).isEmpty());
+
+		registry.register(HASH, "public/first", 10, null, null);
+		assertEquals("public/first", registry.acquire(HASH).orElseThrow().getStorageKey());
+
+		assertEquals(2, refCount());
+	}
+
+	@Test
+	void registeringStoredContentAgainKeepsTheFirstObject() {
+		registry.register(HASH, "public/first", 10, null, null);
+
+		BlobEntity blob = registry.register(HASH, "public/second", 10, null, null);
+
+		assertEquals("public/first", blob.getStorageKey());
+		assertEquals(2, refCount());
+		assertEquals(List.of("public/second"), queuedDeletes());
+	}
+
+	@Test
+	void releaseForgetsTheBlobWithTheLastReference() {
+		registry.register(HASH, "public/first", 10, null, null);
+		registry.acquire(HASH);
+
+		assertFalse(registry.release(HASH));
+		assertEquals(1, refCount());
+
+		assertTrue(registry.release(HASH));
+		assertFalse(registry.isStored(HASH));
+	}
+
+	@Test
+	void releaseOfUnknownContentIsTheLast() {
+		assertTrue(registry.release(HASH));
+	}
+
+	@Test
+	void secondBlobForTheSameContentIsRefused() {
+		registry.register(HASH, "public/first", 10, null, null);
+
+		var duplicate = BlobEntity.builder()
+				.contentHash(HASH)
+				.storageKey("public/second")
+				.size(10)
+				.refCount(1)
+				.createdAt(new Date())
+				.build();
+		assertThrows(DataIntegrityViolationException.class, () -> blobRepo.saveAndFlush(duplicate));
+	}
+
+	private int refCount() {
+		return blobRepo.findAll().get(0).getRefCount();
+	}
+
+	private List<String> queuedDeletes() {
+		return outboxRepo.findAll().stream()
+				.filter(entry -> entry.getAction() == OutboxAction.DELETE)
+				.map(StorageOutboxEntity::getStorageKey)
+				.toList();
+	}
+}
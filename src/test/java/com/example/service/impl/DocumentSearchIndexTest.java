@@ -0,0 +1,146 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import com.example.dto.DocumentCursor;
+import com.example.dto.DocumentSearchRow;
+import com.example.dto.DocumentSummary;
+import com.example.dto.FileType;
+import com.example.entity.DocumentEntity;
+import com.example.repo.DocumentRepo;
+
+class DocumentSearchIndexTest {
+	private static final Set<FileType> ALL_TYPES = EnumSet.allOf(FileType.class);
+
+	DocumentRepo documentRepo = mock(DocumentRepo.class);
+	DocumentSearchIndex index = new DocumentSearchIndex(documentRepo);
+
+	@Test
+	void tokenizesOnSeparatorsAndFoldsCaseAndDiacritics() {
+		assertEquals(List.of("bai", "giang", "java", "2024", "pdf"), DocumentSearchIndex.tokenize("Bài giảng JAVA_2024.pdf"));
+		assertEquals(List.of("dai", "so"), DocumentSearchIndex.tokenize("Đại số"));
+	}
+
+	@Test
+	void tokenizeDropsRepeatsAndEmptyTokens() {
+		assertEquals(List.of("notes", "txt"), DocumentSearchIndex.tokenize("  notes -- notes.txt "));
+		assertEquals(List.of(), DocumentSearchIndex.tokenize(" - _ "));
+		assertEquals(List.of(), DocumentSearchIndex.tokenize(null));
+	}
+
+	@Test
+	void matchesEveryQueryTokenAsAWordPrefix() {
+		add(1, "Bài giảng Java.pdf", FileType.PUBLIC, 1000);
+		add(2, "Java exercises.zip", FileType.PUBLIC, 2000);
+		add(3, "Python notes.txt", FileType.PUBLIC, 3000);
+
+		assertEquals(List.of(2, 1), ids(index.search("jav", ALL_TYPES, null, 10)));
+		assertEquals(List.of(1), ids(index.search("GIANG jav", ALL_TYPES, null, 10)));
+		assertEquals(List.of(), ids(index.search("ava", ALL_TYPES, null, 10)));
+		assertEquals(List.of(), ids(index.search("java python", ALL_TYPES, null, 10)));
+	}
+
+	@Test
+	void queryWithoutTokensFindsNothing() {
+		add(1, "Java.pdf", FileType.PUBLIC, 1000);
+
+		assertTrue(index.search("", ALL_TYPES, null, 10).isEmpty());
+		assertTrue(index.search(" -- ", ALL_TYPES, null, 10).isEmpty());
+	}
+
+	@Test
+	void keepsOnlyTheGivenFolders() {
+		add(1, "Java public.pdf", FileType.PUBLIC, 1000);
+		add(2, "Java teacher.pdf", FileType.TEACHER, 2000);
+		add(3, "Java student.pdf", FileType.STUDENT, 3000);
+
+		var withoutTeacher = EnumSet.complementOf(EnumSet.of(FileType.TEACHER));
+		assertEquals(List.of(3, 1), ids(index.search("java", withoutTeacher, null, 10)));
+	}
+
+	@Test
+	void returnsTheNewestMatchesFirstUpToTheLimit() {
+		for (int id = 1; id <= 20; id++)
+			add(id, "Lecture " + id + ".pdf", FileType.PUBLIC, 1000L * (id % 7));
+
+		List<DocumentSummary> page = index.search("lecture", ALL_TYPES, null, 5);
+
+		// newest upload first, then the higher id
+		assertEquals(List.of(20, 13, 6, 19, 12), ids(page));
+	}
+
+	@Test
+	void continuesAfterTheCursor() {
+		for (int id = 1; id <= 6; id++)
+			add(id, "Lecture " + id + ".pdf", FileType.PUBLIC, 1000L * id);
+
+		var first = index.search("lecture", ALL_TYPES, null, 4);
+		var after = DocumentCursor.of(first.get(first.size() - 1));
+		var second = index.search("lecture", ALL_TYPES, after, 4);
+
+		assertEquals(List.of(6, 5, 4, 3), ids(first));
+		assertEquals(List.of(2, 1), ids(second));
+	}
+
+	@Test
+	void forgetsRemovedAndRenamedDocuments() {
+		add(1, "Java.pdf", FileType.PUBLIC, 1000);
+		add(2, "Java advanced.pdf", FileType.PUBLIC, 2000);
+
+		index.removeAll(List.of(2));
+		add(1, "Kotlin.pdf", FileType.PUBLIC, 1000);
+
+		assertTrue(index.search("java", ALL_TYPES, null, 10).isEmpty());
+		assertEquals(List.of(1), ids(index.search("kotlin", ALL_TYPES, null, 10)));
+	}
+
+	@Test
+	void rebuildDoesNotBringBackDocumentsDeletedAfterItsRead() {
+		Date uploaded = new Date();
+		add(1, "Java.pdf", FileType.PUBLIC, uploaded.getTime());
+		add(2, "Java advanced.pdf", FileType.PUBLIC, uploaded.getTime());
+		// the snapshot still holds document 2, deleted after it was read
+		when(documentRepo.findAllSearchable()).thenReturn(List.of(
+				new DocumentSearchRow(1, "file-1", "Java.pdf", uploaded, FileType.PUBLIC),
+				new DocumentSearchRow(2, "file-2", "Java advanced.pdf", uploaded, FileType.PUBLIC)));
+		index.removeAll(List.of(2));
+
+		index.rebuild();
+
+		assertEquals(List.of(1), ids(index.search("java", ALL_TYPES, null, 10)));
+	}
+
+	@Test
+	void rebuildPicksUpDocumentsOfOtherNodes() {
+		when(documentRepo.findAllSearchable()).thenReturn(List.of(
+				new DocumentSearchRow(7, "file-7", "Java.pdf", new Date(1000), FileType.PUBLIC)));
+
+		index.rebuild();
+
+		assertEquals(List.of(7), ids(index.search("java", ALL_TYPES, null, 10)));
+	}
+
+	private void add(int id, String fileName, FileType fileType, long uploadAt) {
+		index.add(DocumentEntity.builder()
+				.id(id)
+				.fileId("file-" + id)
+				.fileName(fileName)
+				.fileType(fileType)
+				.uploadAt(new Date(uploadAt))
+				.build());
+	}
+
+	private List<Integer> ids(List<DocumentSummary> summaries) {
+		return summaries.stream().map(DocumentSummary::id).toList();
+	}
+}
@@ -0,0 +1,81 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.Test;
+
+class GzipCompressingInputStreamTest {
+
+	@Test
+	void roundTripsText() throws IOException {
+		byte[] original = "the quick brown fox jumps over the lazy dog\n".repeat(5_000)
+				.getBytes(StandardCharsets.UTF_8);
+
+		byte[] compressed = compress(original);
+
+		assertTrue(compressed.length < original.length / 10, "text should compress well");
+		assertArrayEquals(original, decompress(compressed));
+	}
+
+	@Test
+	void roundTripsIncompressibleBodyLargerThanTheBuffer() throws IOException {
+		byte[] original = new byte[300_000];
+		new Random(7).nextBytes(original);
+
+		assertArrayEquals(original, decompress(compress(original)));
+	}
+
+	@Test
+	void roundTripsEmptyBody() throws IOException {
+		assertArrayEquals(new byte[0], decompress(compress(new byte[0])));
+	}
+
+	@Test
+	void writesCrcAndLengthTrailer() throws IOException {
+		byte[] original = "trailer check".getBytes(StandardCharsets.UTF_8);
+		byte[] compressed = compress(original);
+
+		int sizeOffset = compressed.length - 4;
+		long size = 0;
+		for (int i = 0; i < 4; i++)
+			size |= (compressed[sizeOffset + i] & 0xffL) << (8 * i);
+		assertEquals(original.length, size);
+		// GZIPInputStream verifies the CRC and fails on a mismatch
+		assertArrayEquals(original, decompress(compressed));
+	}
+
+	@Test
+	void readsByteByByte() throws IOException {
+		byte[] original = "single bytes".getBytes(StandardCharsets.UTF_8);
+		var out = new ByteArrayOutputStream();
+		try (InputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(original))) {
+			int b;
+			while ((b = in.read()) != -1)
+				out.write(b);
+		}
+
+		assertArrayEquals(original, decompress(out.toByteArray()));
+	}
+
+	private byte[] compress(byte[] data) throws IOException {
+		try (InputStream in = new GzipCompressingInputStream(new ByteArrayInputStream(data))) {
+			return in.readAllBytes();
+		}
+	}
+
+	private byte[] decompress(byte[] data) throws IOException {
+		try (InputStream in = new GZIPInputStream(new ByteArrayInputStream(data))) {
+			return in.readAllBytes();
+		}
+	}
+}
@@ -0,0 +1,87 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.example.storage.impl.InMemoryObjectStore;
+
+class GzipDecodedContentTest {
+	private static final String KEY = "public/doc-notes.txt";
+
+	InMemoryObjectStore objectStore = new InMemoryObjectStore();
+	byte[] original;
+
+	@BeforeEach
+	void storeCompressed() throws IOException {
+		var text = new StringBuilder();
+		for (int line = 0; line < 20_000; line++)
+			text.append("line ").append(line).append('\n');
+		original = text.toString().getBytes(StandardCharsets.US_ASCII);
+		objectStore.put(KEY, "text/plain", new GzipCompressingInputStream(new ByteArrayInputStream(original)), -1);
+	}
+
+	@Test
+	void decodesWholeBody() throws IOException {
+		var content = new GzipDecodedContent(objectStore.get(KEY), 0, original.length);
+
+		assertEquals(original.length, content.contentLength());
+		assertArrayEquals(original, transfer(content));
+	}
+
+	@Test
+	void decodesRangeFromTheMiddle() throws IOException {
+		int offset = 123_456;
+		int length = 1_000;
+		var content = new GzipDecodedContent(objectStore.get(KEY), offset, length);
+
+		assertEquals(length, content.contentLength());
+		assertArrayEquals(Arrays.copyOfRange(original, offset, offset + length), transfer(content));
+	}
+
+	@Test
+	void decodesLastBytes() throws IOException {
+		int offset = original.length - 10;
+		var content = new GzipDecodedContent(objectStore.get(KEY), offset, 10);
+
+		assertArrayEquals(Arrays.copyOfRange(original, offset, original.length), transfer(content));
+	}
+
+	@Test
+	void stopsAtTheRangeEndWhenReadByteByByte() throws IOException {
+		var content = new GzipDecodedContent(objectStore.get(KEY), 5, 3);
+
+		try (content) {
+			InputStream in = content.stream();
+			assertEquals(original[5], (byte) in.read());
+			assertEquals(original[6], (byte) in.read());
+			assertEquals(original[7], (byte) in.read());
+			assertEquals(-1, in.read());
+		}
+	}
+
+	@Test
+	void failsOnBodyThatIsNotGzip() throws IOException {
+		objectStore.put("public/plain.txt", "text/plain", new ByteArrayInputStream(original), original.length);
+		var content = new GzipDecodedContent(objectStore.get("public/plain.txt"), 0, original.length);
+
+		assertThrows(UncheckedIOException.class, content::stream);
+	}
+
+	private byte[] transfer(GzipDecodedContent content) throws IOException {
+		var out = new ByteArrayOutputStream();
+		content.transferTo(out);
+		return out.toByteArray();
+	}
+}
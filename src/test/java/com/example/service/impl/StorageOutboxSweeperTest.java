@@ -0,0 +1,147 @@
+package com.example.service.impl;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doReturn;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoSpyBean;
+
+import com.example.dto.OutboxAction;
+import com.example.entity.BlobEntity;
+import com.example.entity.StorageOutboxEntity;
+import com.example.repo.BlobRepo;
+import com.example.repo.StorageOutboxRepo;
+import com.example.storage.ObjectStore;
+
+@SpringBootTest(properties = {
+		"spring.datasource.url=jdbc:h2:mem:outbox-sweeper-test;DB_CLOSE_DELAY=-1",
+		"spring.jpa.show-sql=false",
+		"app.storage.type=memory",
+		"app.storage.outbox.interval=PT1H" })
+class StorageOutboxSweeperTest {
+	@Autowired
+	StorageOutboxSweeper sweeper;
+
+	@Autowired
+	StorageOutboxRepo outboxRepo;
+
+	@Autowired
+	BlobRepo blobRepo;
+
+	@MockitoSpyBean
+	ObjectStore objectStore;
+
+	@BeforeEach
+	void clear() {
+		outboxRepo.deleteAll();
+		blobRepo.deleteAll();
+	}
+
+	@Test
+	void deletesObjectsOfDueEntries() throws IOException {
+		store("public/gone");
+		queue("public/gone", -1000);
+
+		sweeper.sweep();
+
+		assertFalse(objectStore.head("public/gone").isPresent());
+		assertTrue(outboxRepo.findAll().isEmpty());
+	}
+
+	@Test
+	void leavesEntriesThatAreNotDueYet() throws IOException {
+		store("public/later");
+		queue("public/later", 60_000);
+
+		sweeper.sweep();
+
+		assertTrue(objectStore.head("public/later").isPresent());
+		assertEquals(1, outboxRepo.count());
+	}
+
+	@Test
+	void keepsObjectsThatBecameStoredContent() throws IOException {
+		store("public/shared");
+		queue("public/shared", -1000);
+		blobRepo.save(BlobEntity.builder()
+				.contentHash("b".repeat(64))
+				.storageKey("public/shared")
+				.size(4)
+				.refCount(1)
+				.createdAt(new Date())
+				.build());
+
+		sweeper.sweep();
+
+		assertTrue(objectStore.head("public/shared").isPresent());
+		assertTrue(outboxRepo.findAll().isEmpty());
+	}
+
+	@Test
+	void retriesFailedDeletesLater() throws IOException {
+		store("public/stuck");
+		queue("public/stuck", -1000);
+		doReturn(List.of("public/stuck")).when(objectStore).deleteAll(any());
+
+		sweeper.sweep();
+
+		StorageOutboxEntity entry = outboxRepo.findAll().get(0);
+		assertEquals(1, entry.getAttempts());
+		assertTrue(entry.getNextAttemptAt().after(new Date()));
+		assertTrue(objectStore.head("public/stuck").isPresent());
+	}
+
+	@Test
+	void cancelRemovesUnclaimedEntry() {
+		queue("public/upload", 60_000);
+
+		assertEquals(1, outboxRepo.cancel(OutboxAction.DELETE, "public/upload"));
+		assertTrue(outboxRepo.findAll().isEmpty());
+	}
+
+	@Test
+	void claimedEntryCanNoLongerBeCancelled() {
+		StorageOutboxEntity entry = queue("public/upload", -1000);
+		Date now = new Date();
+
+		assertEquals(1, outboxRepo.claim(entry.getId(), now, new Date(now.getTime() + 60_000)));
+
+		assertEquals(0, outboxRepo.cancel(OutboxAction.DELETE, "public/upload"));
+		assertNotNull(outboxRepo.findAll().get(0).getClaimedAt());
+	}
+
+	@Test
+	void claimedEntryIsNotClaimedAgainBeforeTheLeaseEnds() {
+		StorageOutboxEntity entry = queue("public/upload", -1000);
+		Date now = new Date();
+
+		assertEquals(1, outboxRepo.claim(entry.getId(), now, new Date(now.getTime() + 60_000)));
+		assertEquals(0, outboxRepo.claim(entry.getId(), new Date(now.getTime() + 1000), new Date(now.getTime() + 61_000)));
+	}
+
+	private void store(String key) throws IOException {
+		objectStore.put(key, "text/plain", new ByteArrayInputStream(new byte[4]), 4);
+	}
+
+	private StorageOutboxEntity queue(String key, long dueInMillis) {
+		Date now = new Date();
+		return outboxRepo.save(StorageOutboxEntity.builder()
+				.storageKey(key)
+				.action(OutboxAction.DELETE)
+				.createdAt(now)
+				.nextAttemptAt(new Date(now.getTime() + dueInMillis))
+				.build());
+	}
+}